@@ -0,0 +1,59 @@
+package com.captainziboo.quartz4mc.manager;
+
+import com.captainziboo.quartz4mc.config.QuartzConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// Generated configs for the benchmarks. Schedules never fire within a run, so only
+// scheduling structures are measured, not command execution.
+final class BenchmarkCrons {
+    static final String FAR_FUTURE = "0 0 0 1 1 ? 2099";
+
+    private BenchmarkCrons() {}
+
+    static QuartzConfig config(String engine, int count) {
+        QuartzConfig config = new QuartzConfig();
+        config.engine = engine;
+        config.metrics.enabled = true;
+        List<QuartzConfig.CronEntry> crons = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) crons.add(entry("bench-" + i, FAR_FUTURE));
+        config.crons = new CopyOnWriteArrayList<>(crons);
+        return config;
+    }
+
+    static QuartzConfig.CronEntry entry(String id, String schedule) {
+        QuartzConfig.CronEntry entry = new QuartzConfig.CronEntry();
+        entry.id = id;
+        entry.schedule = schedule;
+        entry.command = "say " + id;
+        return entry;
+    }
+
+    // Stands in for the Minecraft command manager: no parsing, no world access
+    static final CommandExecutor NO_OP = consuming(command -> {});
+
+    // Hands every command to the sink (a Blackhole) and reports success; fan-outs have no targets
+    static CommandExecutor consuming(Consumer<String> sink) {
+        return new CommandExecutor() {
+            @Override
+            public boolean execute(String cronId, String command) {
+                sink.accept(command);
+                return true;
+            }
+
+            @Override
+            public List<? extends FanOutTarget> resolveTargets(String selector) {
+                return List.of();
+            }
+
+            @Override
+            public boolean executeAs(String cronId, String command, FanOutTarget target) {
+                sink.accept(command);
+                return true;
+            }
+        };
+    }
+}
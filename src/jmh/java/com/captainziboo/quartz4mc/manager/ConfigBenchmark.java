@@ -0,0 +1,33 @@
+package com.captainziboo.quartz4mc.manager;
+
+import com.captainziboo.quartz4mc.config.QuartzConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// QuartzConfig.load/save on large files. The config path comes from -Dquartz4mc.config (see build.gradle).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ConfigBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int crons;
+
+    private QuartzConfig config;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        config = BenchmarkCrons.config("quartz", crons);
+        config.save();
+    }
+
+    @Benchmark
+    public QuartzConfig load() {
+        return QuartzConfig.load();
+    }
+
+    @Benchmark
+    public void save() {
+        config.save();
+    }
+}
@@ -0,0 +1,46 @@
+package com.captainziboo.quartz4mc.manager;
+
+import com.captainziboo.quartz4mc.config.QuartzConfig;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Overhead between an engine firing a cron and the command running on the "server thread":
+// fire lag bookkeeping, dispatcher queueing, the per-tick drain and latency recording
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DispatchBenchmark {
+    @Param({"1", "100"})
+    public int firesPerTick;
+
+    private QuartzManager manager;
+    private String[] ids;
+
+    @Setup(Level.Trial)
+    public void setup(Blackhole blackhole) {
+        manager = QuartzManager.getInstance();
+        QuartzConfig config = BenchmarkCrons.config("quartz", 0);
+        config.dispatcher.tickBudgetNanos = Long.MAX_VALUE; // Drain everything in one tick
+        manager.initialize(null, BenchmarkCrons.consuming(blackhole::consume));
+        manager.reload(config);
+        ids = new String[firesPerTick];
+        for (int i = 0; i < firesPerTick; i++) ids[i] = "bench-" + i;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        manager.shutdown();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(100)
+    public void fireAndDispatch() {
+        for (int round = 0; round < 100 / firesPerTick; round++) {
+            long now = System.currentTimeMillis();
+            for (String id : ids) manager.fire(id, "say hi", 0, now);
+            manager.getDispatcher().tick();
+        }
+    }
+}
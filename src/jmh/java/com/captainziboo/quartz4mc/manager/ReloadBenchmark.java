@@ -0,0 +1,59 @@
+package com.captainziboo.quartz4mc.manager;
+
+import com.captainziboo.quartz4mc.config.QuartzConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// loadAndStartEnabledCrons on generated configs: a cold load (then unload) and a reload
+// where nothing changed, which should only cost the diff
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class ReloadBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int crons;
+
+    @Param({"quartz", "tick"})
+    public String engine;
+
+    private QuartzManager manager;
+    private QuartzConfig config;
+    private QuartzConfig empty;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        manager = QuartzManager.getInstance();
+        config = BenchmarkCrons.config(engine, crons);
+        empty = BenchmarkCrons.config(engine, 0);
+        manager.initialize(null, BenchmarkCrons.NO_OP);
+        manager.reload(empty);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        manager.shutdown();
+    }
+
+    @Benchmark
+    public int coldLoadAndUnload() {
+        int scheduled = manager.loadAndStartEnabledCrons(config);
+        manager.reload(empty);
+        return scheduled;
+    }
+
+    @Benchmark
+    public int unchangedReload(LoadedState loaded) {
+        return manager.reload(config).unchanged;
+    }
+
+    @State(Scope.Benchmark)
+    public static class LoadedState {
+        @Setup(Level.Trial)
+        public void load(ReloadBenchmark benchmark) {
+            benchmark.manager.loadAndStartEnabledCrons(benchmark.config);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.captainziboo.quartz4mc.manager;
+
+import com.captainziboo.quartz4mc.config.QuartzConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Heap retained by the Quartz engine once every cron is scheduled, with one JobDetail per cron
+// or the shared-job layout. Reported as the "retainedBytes" secondary result.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class ScheduleMemoryBenchmark {
+    @Param({"50000"})
+    public int crons;
+
+    @Param({"false", "true"})
+    public boolean sharedJob;
+
+    private QuartzManager manager;
+    private QuartzConfig config;
+    private QuartzConfig empty;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        manager = QuartzManager.getInstance();
+        config = BenchmarkCrons.config("quartz", crons);
+        config.scheduler.sharedJob = sharedJob;
+        empty = BenchmarkCrons.config("quartz", 0);
+        empty.scheduler.sharedJob = sharedJob;
+        manager.initialize(null, BenchmarkCrons.NO_OP);
+        manager.reload(empty);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        manager.shutdown();
+    }
+
+    @Benchmark
+    public int loadAndMeasure(Heap heap) {
+        long before = heap.used();
+        int scheduled = manager.loadAndStartEnabledCrons(config);
+        heap.retainedBytes = heap.used() - before;
+        manager.reload(empty);
+        return scheduled;
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Heap {
+        public long retainedBytes;
+
+        long used() {
+            Runtime runtime = Runtime.getRuntime();
+            for (int i = 0; i < 3; i++) System.gc();
+            return runtime.totalMemory() - runtime.freeMemory();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.captainziboo.quartz4mc.manager;
+
+import com.captainziboo.quartz4mc.config.QuartzConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// startCron/stopCron round trips against an otherwise empty engine
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SchedulingBenchmark {
+    @Param({"quartz", "tick"})
+    public String engine;
+
+    private QuartzManager manager;
+    private QuartzConfig.CronEntry entry;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        manager = QuartzManager.getInstance();
+        manager.initialize(null, BenchmarkCrons.NO_OP);
+        manager.reload(BenchmarkCrons.config(engine, 0));
+        entry = BenchmarkCrons.entry("bench-cron", BenchmarkCrons.FAR_FUTURE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        manager.shutdown();
+    }
+
+    @Benchmark
+    public boolean startStopCron() {
+        manager.startCron(entry);
+        return manager.stopCron(entry.id);
+    }
+}
@@ -5,6 +5,8 @@ import com.captainziboo.quartz4mc.config.QuartzConfig;
 import com.captainziboo.quartz4mc.manager.QuartzManager;
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,7 +34,7 @@ public class Quartz4MC implements ModInitializer {
         // Load config
         config = QuartzConfig.load();
 
-        // Initialize QuartzManager
+        // Initialize QuartzManager (its Quartz scheduler is only created once a cron is scheduled, after SERVER_STARTED)
         quartzManager = QuartzManager.getInstance();
 
         // Register commands
@@ -52,21 +54,45 @@ public class Quartz4MC implements ModInitializer {
                     String status = entry.enabled ? "ENABLED" : "DISABLED";
                     String scheduled = quartzManager.isCronScheduled(entry.id) ? "SCHEDULED" : "NOT_SCHEDULED";
                     LOGGER.debug(" - [{}|{}] {} | Pattern: {} | Command: {}", 
-                            status, scheduled, entry.id, entry.schedule, entry.command);
+                            status, scheduled, entry.id, entry.schedule, entry.isPipeline() ? entry.steps.size() + " step(s)" : entry.command);
                 }
             } catch (Exception e) {
                 LOGGER.error("[{}] Error initializing crons: {}", MOD_NAME, e.getMessage(), e);
             }
+
+            // "@on server-started" crons
+            quartzManager.onServerStarted(server.getPlayerManager().getCurrentPlayerCount());
+        });
+
+        // "@on player-join", "@on player-leave" and "@on players ..." crons
+        ServerPlayConnectionEvents.JOIN.register((handler, sender, server) -> quartzManager.onPlayerJoin());
+        ServerPlayConnectionEvents.DISCONNECT.register((handler, server) -> quartzManager.onPlayerLeave());
+
+        // Datapack reloads rebuild the command tree: cached parses must be dropped
+        ServerLifecycleEvents.END_DATA_PACK_RELOAD.register((server, resourceManager, success) -> {
+            LOGGER.debug("[{}] Datapacks reloaded. Invalidating cached cron commands...", MOD_NAME);
+            quartzManager.getParseCache().invalidateAll();
         });
 
+        // Advance the tick engine and drain queued cron executions under the configured tick budget
+        ServerTickEvents.START_SERVER_TICK.register(server -> quartzManager.tick());
+        // Tick durations feed the load governor (recent MSPT)
+        ServerTickEvents.END_SERVER_TICK.register(server -> quartzManager.tickEnd());
+
         ServerLifecycleEvents.SERVER_STOPPING.register(server -> {
             LOGGER.debug("[{}] Server stopping. Shutting down cron manager...", MOD_NAME);
             quartzManager.shutdown();
+            QuartzConfig.flushPendingSaves();
         });
 
         LOGGER.debug("[{}] Initialization complete.", MOD_NAME);
     }
 
-    public QuartzConfig getConfig() { return config; }
+    public QuartzConfig getConfig() {
+        // The manager holds the config from the last /quartz4mc reload
+        QuartzConfig current = quartzManager != null ? quartzManager.getConfig() : null;
+        return current != null ? current : config;
+    }
+
     public QuartzManager getQuartzManager() { return quartzManager; }
 }
@@ -1,53 +1,101 @@
 package com.captainziboo.quartz4mc.command;
 
+import com.captainziboo.quartz4mc.config.CronRegistry;
 import com.captainziboo.quartz4mc.config.QuartzConfig;
+import com.captainziboo.quartz4mc.manager.CircuitBreaker;
+import com.captainziboo.quartz4mc.manager.ClusterEngine;
+import com.captainziboo.quartz4mc.manager.ConcurrencyGroup;
+import com.captainziboo.quartz4mc.manager.CostClass;
+import com.captainziboo.quartz4mc.manager.CronDispatcher;
+import com.captainziboo.quartz4mc.manager.CronMetrics;
+import com.captainziboo.quartz4mc.manager.ExecutionHistory;
+import com.captainziboo.quartz4mc.manager.FireForecast;
+import com.captainziboo.quartz4mc.manager.LatencyHistogram;
+import com.captainziboo.quartz4mc.manager.LoadGovernor;
+import com.captainziboo.quartz4mc.manager.MisfirePolicy;
 import com.captainziboo.quartz4mc.manager.QuartzManager;
+import com.captainziboo.quartz4mc.manager.ScheduleSpreader;
+import com.captainziboo.quartz4mc.manager.Schedules;
 import com.mojang.brigadier.Command;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 import com.mojang.brigadier.context.CommandContext;
 import com.mojang.brigadier.suggestion.SuggestionProvider;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
 import net.minecraft.server.command.CommandManager;
 import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.text.MutableText;
 import net.minecraft.text.Text;
 import net.minecraft.util.Formatting;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 public class QuartzCommands {
     private static final Logger LOGGER = LoggerFactory.getLogger("quartz4mc-commands");
     private static QuartzConfig config;
 
     private static final String QUARTZ_TAG = "§d[Quartz] " + Formatting.RESET; // Rose Quartz
+    private static final int DEFAULT_SPREAD_WINDOW = 60; // Seconds
+    private static final int MAX_UPCOMING_LINES = 50;
+    private static final int DEFAULT_HISTORY_LINES = 10;
+    private static final int MAX_HISTORY_LINES = 50;
+    private static final int LIST_PAGE_SIZE = 10;
+    private static final int MAX_ID_SUGGESTIONS = 50; // Tab completion only offers the first ids matching what was typed
+    private static final String HEATMAP_LEVELS = "▁▂▃▄▅▆▇█";
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    // Rendered "/quartz4mc list" lines by cron id, dropped whenever the registry changes
+    private static final Map<String, Text> LIST_LINES = new ConcurrentHashMap<>();
+    private static CronRegistry listLinesRegistry;
+    private static long listLinesVersion = -1L;
 
     // ---------------- Suggestion Providers ----------------
     private static final SuggestionProvider<ServerCommandSource> EXISTING_CRON_SUGGESTIONS =
         (context, builder) -> {
-            if (config != null && config.crons != null) {
-                config.crons.stream().map(c -> c.id).forEach(builder::suggest);
+            if (config != null) {
+                config.registry().withPrefix(builder.getRemaining()).limit(MAX_ID_SUGGESTIONS).forEach(cron -> builder.suggest(cron.id));
             }
             return builder.buildFuture();
         };
 
     private static final SuggestionProvider<ServerCommandSource> ACTIVE_CRON_SUGGESTIONS =
         (context, builder) -> {
-            if (config != null && config.crons != null) {
-                config.crons.stream().filter(c -> c.enabled).map(c -> c.id).forEach(builder::suggest);
+            if (config != null) {
+                config.registry().withPrefix(builder.getRemaining()).filter(cron -> cron.enabled)
+                        .limit(MAX_ID_SUGGESTIONS).forEach(cron -> builder.suggest(cron.id));
             }
             return builder.buildFuture();
         };
 
     private static final SuggestionProvider<ServerCommandSource> INACTIVE_CRON_SUGGESTIONS =
         (context, builder) -> {
-            if (config != null && config.crons != null) {
-                config.crons.stream().filter(c -> !c.enabled).map(c -> c.id).forEach(builder::suggest);
+            if (config != null) {
+                config.registry().withPrefix(builder.getRemaining()).filter(cron -> !cron.enabled)
+                        .limit(MAX_ID_SUGGESTIONS).forEach(cron -> builder.suggest(cron.id));
             }
             return builder.buildFuture();
         };
 
+    private static final SuggestionProvider<ServerCommandSource> UPCOMING_SUGGESTIONS =
+        (context, builder) -> {
+            builder.suggest("10", Text.literal("Next 10 fires"));
+            builder.suggest("30s", Text.literal("Fires in the next 30 seconds"));
+            builder.suggest("5m", Text.literal("Fires in the next 5 minutes"));
+            builder.suggest("1h", Text.literal("Fires in the next hour"));
+            return builder.buildFuture();
+        };
+
     private static final SuggestionProvider<ServerCommandSource> QUARTZ_PATTERN_SUGGESTIONS =
         (context, builder) -> {
             builder.suggest("\"0 */1 * * * ?\"", Text.literal("Every minute"));
@@ -58,13 +106,17 @@ public class QuartzCommands {
             builder.suggest("\"0 0 0 * * SUN\"", Text.literal("Every Sunday at midnight"));
             builder.suggest("\"0 0 0 1 * ?\"", Text.literal("First day of every month"));
             builder.suggest("\"0 30 8 * * MON-FRI\"", Text.literal("Weekdays at 8:30 AM"));
+            builder.suggest("\"@every 20t\"", Text.literal("Every 20 ticks"));
+            builder.suggest("\"@on player-join\"", Text.literal("When a player joins"));
+            builder.suggest("\"@on players >= 1\"", Text.literal("When the first player joins"));
+            builder.suggest("\"@on server-started\"", Text.literal("Once the server has started"));
             return builder.buildFuture();
         };
 
-    private static final SuggestionProvider<ServerCommandSource> LIST_FILTER_SUGGESTIONS =
+    private static final SuggestionProvider<ServerCommandSource> DUMP_FORMAT_SUGGESTIONS =
         (context, builder) -> {
-            builder.suggest("enabled", Text.literal("Show only enabled crons"));
-            builder.suggest("disabled", Text.literal("Show only disabled crons"));
+            builder.suggest("csv", Text.literal("Comma-separated text"));
+            builder.suggest("binary", Text.literal("Compact binary records"));
             return builder.buildFuture();
         };
 
@@ -80,10 +132,19 @@ public class QuartzCommands {
                     .executes(QuartzCommands::reloadCommand))
 
                 .then(CommandManager.literal("list")
-                    .executes(QuartzCommands::listAllCommand)
-                    .then(CommandManager.argument("filter", StringArgumentType.word())
-                        .suggests(LIST_FILTER_SUGGESTIONS)
-                        .executes(QuartzCommands::listFilteredCommand)))
+                    .executes(context -> listCommand(context, "all", 1))
+                    .then(CommandManager.argument("page", IntegerArgumentType.integer(1))
+                        .executes(context -> listCommand(context, "all", IntegerArgumentType.getInteger(context, "page"))))
+                    .then(listFilter("all"))
+                    .then(listFilter("enabled"))
+                    .then(listFilter("disabled")))
+
+                .then(CommandManager.literal("search")
+                    .then(CommandManager.argument("prefix", StringArgumentType.word())
+                        .suggests(EXISTING_CRON_SUGGESTIONS)
+                        .executes(context -> searchCommand(context, 1))
+                        .then(CommandManager.argument("page", IntegerArgumentType.integer(1))
+                            .executes(context -> searchCommand(context, IntegerArgumentType.getInteger(context, "page"))))))
 
                 .then(CommandManager.literal("add")
                     .then(CommandManager.argument("id", StringArgumentType.word())
@@ -113,7 +174,36 @@ public class QuartzCommands {
                         .executes(QuartzCommands::detailsCommand)))
 
                 .then(CommandManager.literal("status")
-                    .executes(QuartzCommands::statusCommand));
+                    .executes(QuartzCommands::statusCommand))
+
+                .then(CommandManager.literal("cluster")
+                    .then(CommandManager.literal("prune")
+                        .executes(QuartzCommands::clusterPruneCommand)))
+
+                .then(CommandManager.literal("history")
+                    .then(CommandManager.literal("dump")
+                        .executes(context -> historyDumpCommand(context, "csv"))
+                        .then(CommandManager.argument("format", StringArgumentType.word())
+                            .suggests(DUMP_FORMAT_SUGGESTIONS)
+                            .executes(context -> historyDumpCommand(context, StringArgumentType.getString(context, "format")))))
+                    .then(CommandManager.argument("id", StringArgumentType.word())
+                        .suggests(EXISTING_CRON_SUGGESTIONS)
+                        .executes(context -> historyCommand(context, DEFAULT_HISTORY_LINES))
+                        .then(CommandManager.argument("count", IntegerArgumentType.integer(1, MAX_HISTORY_LINES))
+                            .executes(context -> historyCommand(context, IntegerArgumentType.getInteger(context, "count"))))))
+
+                .then(CommandManager.literal("upcoming")
+                    .executes(context -> upcomingCommand(context, null))
+                    .then(CommandManager.argument("range", StringArgumentType.word())
+                        .suggests(UPCOMING_SUGGESTIONS)
+                        .executes(context -> upcomingCommand(context, StringArgumentType.getString(context, "range")))))
+
+                .then(CommandManager.literal("spread")
+                    .executes(context -> spreadCommand(context, DEFAULT_SPREAD_WINDOW, false))
+                    .then(CommandManager.argument("window", IntegerArgumentType.integer(1, 3600))
+                        .executes(context -> spreadCommand(context, IntegerArgumentType.getInteger(context, "window"), false))
+                        .then(CommandManager.literal("apply")
+                            .executes(context -> spreadCommand(context, IntegerArgumentType.getInteger(context, "window"), true)))));
 
             dispatcher.register(quartz4mc);
             dispatcher.register(CommandManager.literal("quartz").redirect(quartz4mc.build()));
@@ -127,10 +217,17 @@ public class QuartzCommands {
         try {
             QuartzManager quartzManager = QuartzManager.getInstance();
             config = QuartzConfig.load();
-            int loadedCrons = quartzManager.loadAndStartEnabledCrons(config);
+            QuartzManager.ReloadResult result = quartzManager.reload(config);
 
             source.sendFeedback(() -> Text.literal(QUARTZ_TAG + Formatting.GRAY + "Configuration reloaded successfully."), false);
-            source.sendFeedback(() -> Text.literal(QUARTZ_TAG + Formatting.WHITE + loadedCrons + Formatting.GRAY + " cron(s) loaded."), false);
+            source.sendFeedback(() -> Text.literal(QUARTZ_TAG + Formatting.WHITE + result.scheduled + Formatting.GRAY + " cron(s) scheduled: "
+                    + Formatting.GREEN + result.added + Formatting.GRAY + " added, "
+                    + Formatting.YELLOW + result.updated + Formatting.GRAY + " updated, "
+                    + Formatting.RED + result.removed + Formatting.GRAY + " removed, "
+                    + Formatting.WHITE + result.unchanged + Formatting.GRAY + " unchanged."), false);
+            if (result.failed > 0) {
+                source.sendError(Text.literal(QUARTZ_TAG + Formatting.RED + result.failed + " cron(s) failed to start, check the server logs."));
+            }
 
             return Command.SINGLE_SUCCESS;
         } catch (Exception e) {
@@ -140,55 +237,81 @@ public class QuartzCommands {
         }
     }
 
-    private static int listAllCommand(CommandContext<ServerCommandSource> context) {
-        return executeListCommand(context.getSource(), null);
-    }
-
-    private static int listFilteredCommand(CommandContext<ServerCommandSource> context) {
-        String filter = StringArgumentType.getString(context, "filter");
-        return executeListCommand(context.getSource(), filter);
+    // "/quartz4mc list <filter> [page]"
+    private static LiteralArgumentBuilder<ServerCommandSource> listFilter(String filter) {
+        return CommandManager.literal(filter)
+            .executes(context -> listCommand(context, filter, 1))
+            .then(CommandManager.argument("page", IntegerArgumentType.integer(1))
+                .executes(context -> listCommand(context, filter, IntegerArgumentType.getInteger(context, "page"))));
     }
 
-    private static int executeListCommand(ServerCommandSource source, String filter) {
-        List<QuartzConfig.CronEntry> cronsToShow;
+    private static int listCommand(CommandContext<ServerCommandSource> context, String filter, int page) {
+        Predicate<QuartzConfig.CronEntry> matches;
         String title;
-
-        if (filter == null) {
-            cronsToShow = config.crons;
-            title = "All crons";
-        } else {
-            switch (filter.toLowerCase()) {
-                case "enabled":
-                    cronsToShow = config.crons.stream().filter(c -> c.enabled).collect(Collectors.toList());
-                    title = "Enabled crons";
-                    break;
-                case "disabled":
-                    cronsToShow = config.crons.stream().filter(c -> !c.enabled).collect(Collectors.toList());
-                    title = "Disabled crons";
-                    break;
-                default:
-                    cronsToShow = config.crons;
-                    title = "All crons";
-                    source.sendFeedback(() -> Text.literal(QUARTZ_TAG + Formatting.GRAY + "Unknown filter '" + filter + "', showing all crons."), false);
-                    break;
-            }
+        int total;
+        switch (filter) {
+            case "enabled":
+                matches = cron -> cron.enabled;
+                title = "Enabled crons";
+                total = config.registry().enabledCount();
+                break;
+            case "disabled":
+                matches = cron -> !cron.enabled;
+                title = "Disabled crons";
+                total = config.registry().size() - config.registry().enabledCount();
+                break;
+            default:
+                matches = cron -> true;
+                title = "All crons";
+                total = config.registry().size();
+                break;
         }
+        String next = "/quartz4mc list " + filter + " " + (page + 1);
+        return sendCronPage(context.getSource(), title, config.registry().withPrefix("").filter(matches), total, page, next);
+    }
 
-        if (cronsToShow.isEmpty()) {
+    private static int searchCommand(CommandContext<ServerCommandSource> context, int page) {
+        String prefix = StringArgumentType.getString(context, "prefix");
+        int total = (int) config.registry().withPrefix(prefix).count();
+        String next = "/quartz4mc search " + prefix + " " + (page + 1);
+        return sendCronPage(context.getSource(), "Crons starting with '" + prefix + "'", config.registry().withPrefix(prefix), total, page, next);
+    }
+
+    // One page of crons (in id order) sent as a single message
+    private static int sendCronPage(ServerCommandSource source, String title, Stream<QuartzConfig.CronEntry> crons, int total, int page, String next) {
+        if (total == 0) {
             source.sendFeedback(() -> Text.literal(QUARTZ_TAG + Formatting.GRAY + "No crons found."), false);
             return Command.SINGLE_SUCCESS;
         }
-
-        source.sendFeedback(() -> Text.literal(QUARTZ_TAG + Formatting.GRAY + title + " (" + cronsToShow.size() + "):"), false);
-        for (QuartzConfig.CronEntry cron : cronsToShow) {
-            if (cron == null || cron.id == null) continue;
-            String status = cron.enabled ? Formatting.GREEN + "enabled" : Formatting.RED + "disabled";
-            source.sendFeedback(() -> Text.literal("  " + Formatting.WHITE + cron.id + Formatting.GRAY + " [" + status + Formatting.GRAY + "]"), false);
+        int pages = (total + LIST_PAGE_SIZE - 1) / LIST_PAGE_SIZE;
+        if (page > pages) {
+            source.sendError(Text.literal(QUARTZ_TAG + Formatting.RED + "Page " + page + " does not exist, there are " + pages + " page(s)."));
+            return 0;
         }
 
+        Map<String, Text> lines = listLines(config.registry());
+        MutableText message = Text.literal(QUARTZ_TAG + Formatting.GRAY + title + " (" + total + "), page " + page + "/" + pages + ":");
+        crons.skip((long) (page - 1) * LIST_PAGE_SIZE).limit(LIST_PAGE_SIZE).forEach(cron ->
+                message.append("\n").append(lines.computeIfAbsent(cron.id, id -> renderListLine(cron))));
+        if (page < pages) message.append("\n" + Formatting.GRAY + "Next page: " + Formatting.WHITE + next);
+        source.sendFeedback(() -> message, false);
         return Command.SINGLE_SUCCESS;
     }
 
+    private static synchronized Map<String, Text> listLines(CronRegistry registry) {
+        if (registry != listLinesRegistry || registry.getVersion() != listLinesVersion) {
+            LIST_LINES.clear();
+            listLinesRegistry = registry;
+            listLinesVersion = registry.getVersion();
+        }
+        return LIST_LINES;
+    }
+
+    private static Text renderListLine(QuartzConfig.CronEntry cron) {
+        String status = cron.enabled ? Formatting.GREEN + "enabled" : Formatting.RED + "disabled";
+        return Text.literal("  " + Formatting.WHITE + cron.id + Formatting.GRAY + " [" + status + Formatting.GRAY + "]");
+    }
+
     private static int addCommand(CommandContext<ServerCommandSource> context) {
         ServerCommandSource source = context.getSource();
         String id = StringArgumentType.getString(context, "id");
@@ -201,7 +324,7 @@ public class QuartzCommands {
 
         final String pattern = patternInput;
 
-        if (config.crons.stream().anyMatch(c -> c.id.equals(id))) {
+        if (config.registry().contains(id)) {
             source.sendError(Text.literal(QUARTZ_TAG + Formatting.RED + "A cron with ID " + Formatting.WHITE + id + Formatting.RED + " already exists!"));
             return 0;
         }
@@ -212,7 +335,7 @@ public class QuartzCommands {
         }
 
         try {
-            org.quartz.CronExpression.validateExpression(pattern);
+            Schedules.validate(pattern);
         } catch (Exception e) {
             source.sendError(Text.literal(QUARTZ_TAG + Formatting.RED + "Invalid Quartz pattern: " + Formatting.WHITE + pattern + Formatting.RED + " (" + e.getMessage() + ")"));
             return 0;
@@ -224,7 +347,7 @@ public class QuartzCommands {
         newCron.command = command;
         newCron.enabled = true;
 
-        config.crons.add(newCron);
+        config.registry().add(newCron);
 
         try {
             boolean started = QuartzManager.getInstance().startCron(newCron);
@@ -247,15 +370,16 @@ public class QuartzCommands {
         ServerCommandSource source = context.getSource();
         String id = StringArgumentType.getString(context, "id");
 
-        QuartzConfig.CronEntry target = config.crons.stream().filter(c -> c.id.equals(id)).findFirst().orElse(null);
+        QuartzConfig.CronEntry target = config.getCronById(id);
         if (target == null) {
             source.sendError(Text.literal(QUARTZ_TAG + Formatting.RED + "Cron " + Formatting.WHITE + id + Formatting.RED + " not found!"));
             return 0;
         }
 
         try {
-            QuartzManager.getInstance().stopCron(id);
-            config.crons.remove(target);
+            QuartzManager.getInstance().removeCron(id);
+            QuartzManager.getInstance().getMetrics().remove(id);
+            config.registry().remove(target);
             config.saveAsync();
             source.sendFeedback(() -> Text.literal(QUARTZ_TAG + Formatting.GRAY + "Cron " + Formatting.WHITE + id + Formatting.GRAY + " removed."), true);
         } catch (Exception e) {
@@ -271,7 +395,7 @@ public class QuartzCommands {
         ServerCommandSource source = context.getSource();
         String id = StringArgumentType.getString(context, "id");
 
-        QuartzConfig.CronEntry target = config.crons.stream().filter(c -> c.id.equals(id)).findFirst().orElse(null);
+        QuartzConfig.CronEntry target = config.getCronById(id);
         if (target == null) {
             source.sendError(Text.literal(QUARTZ_TAG + Formatting.RED + "Cron " + Formatting.WHITE + id + Formatting.RED + " not found!"));
             return 0;
@@ -282,7 +406,7 @@ public class QuartzCommands {
             return 0;
         }
 
-        target.enabled = true;
+        config.registry().setEnabled(target, true);
 
         try {
             boolean started = QuartzManager.getInstance().startCron(target);
@@ -290,7 +414,7 @@ public class QuartzCommands {
             source.sendFeedback(() -> Text.literal(QUARTZ_TAG + Formatting.GRAY + "Cron " + Formatting.WHITE + id + Formatting.GRAY + " started."), true);
             return started ? Command.SINGLE_SUCCESS : 0;
         } catch (Exception e) {
-            target.enabled = false;
+            config.registry().setEnabled(target, false);
             source.sendError(Text.literal(QUARTZ_TAG + Formatting.RED + "Failed to start cron: " + e.getMessage()));
             LOGGER.error("[QuartzCommand] Error starting cron " + id, e);
             return 0;
@@ -301,7 +425,7 @@ public class QuartzCommands {
         ServerCommandSource source = context.getSource();
         String id = StringArgumentType.getString(context, "id");
 
-        QuartzConfig.CronEntry target = config.crons.stream().filter(c -> c.id.equals(id)).findFirst().orElse(null);
+        QuartzConfig.CronEntry target = config.getCronById(id);
         if (target == null) {
             source.sendError(Text.literal(QUARTZ_TAG + Formatting.RED + "Cron " + Formatting.WHITE + id + Formatting.RED + " not found!"));
             return 0;
@@ -312,14 +436,14 @@ public class QuartzCommands {
             return 0;
         }
 
-        target.enabled = false;
+        config.registry().setEnabled(target, false);
 
         try {
             QuartzManager.getInstance().stopCron(id);
             config.saveAsync();
             source.sendFeedback(() -> Text.literal(QUARTZ_TAG + Formatting.GRAY + "Cron " + Formatting.WHITE + id + Formatting.GRAY + " stopped."), true);
         } catch (Exception e) {
-            target.enabled = true;
+            config.registry().setEnabled(target, true);
             source.sendError(Text.literal(QUARTZ_TAG + Formatting.RED + "Failed to stop cron: " + e.getMessage()));
             LOGGER.error("[QuartzCommand] Error stopping cron " + id, e);
             return 0;
@@ -332,7 +456,7 @@ public class QuartzCommands {
         String id = StringArgumentType.getString(context, "id");
         ServerCommandSource source = context.getSource();
 
-        QuartzConfig.CronEntry target = config.crons.stream().filter(c -> c.id.equals(id)).findFirst().orElse(null);
+        QuartzConfig.CronEntry target = config.getCronById(id);
         if (target == null) {
             source.sendError(Text.literal(QUARTZ_TAG + Formatting.RED + "Cron " + Formatting.WHITE + id + Formatting.RED + " not found!"));
             return 0;
@@ -341,8 +465,271 @@ public class QuartzCommands {
         source.sendFeedback(() -> Text.literal(QUARTZ_TAG + Formatting.GRAY + id + " details:"), false);
         source.sendFeedback(() -> Text.literal("  " + Formatting.GRAY + "Status: " + (target.enabled ? Formatting.GREEN + "Enabled" : Formatting.RED + "Disabled")), false);
         source.sendFeedback(() -> Text.literal("  " + Formatting.GRAY + "Quartz Pattern: " + Formatting.WHITE + target.schedule), false);
-        source.sendFeedback(() -> Text.literal("  " + Formatting.GRAY + "Command: " + Formatting.WHITE + target.command), false);
+        if (target.isPipeline()) {
+            source.sendFeedback(() -> Text.literal("  " + Formatting.GRAY + "Steps:"), false);
+            for (int i = 0; i < target.steps.size(); i++) {
+                QuartzConfig.PipelineStep step = target.steps.get(i);
+                int index = i + 1;
+                String condition = (step.delayTicks > 0 ? " after " + step.delayTicks + " tick(s)" : "") + (step.onlyIfSuccess ? " if previous succeeded" : "");
+                source.sendFeedback(() -> Text.literal("    " + Formatting.GRAY + index + ". " + Formatting.WHITE + step.command
+                        + (condition.isEmpty() ? "" : Formatting.GRAY + " (" + condition.trim() + ")")), false);
+            }
+        } else {
+            source.sendFeedback(() -> Text.literal("  " + Formatting.GRAY + "Command: " + Formatting.WHITE + target.command), false);
+        }
+        source.sendFeedback(() -> Text.literal("  " + Formatting.GRAY + "Priority: " + Formatting.WHITE + target.priority
+                + Formatting.GRAY + " | Cost: " + Formatting.WHITE + CostClass.parse(target.cost).name().toLowerCase()
+                + Formatting.GRAY + " | Misfire: " + Formatting.WHITE + MisfirePolicy.parse(target.misfire).getName()
+                + (target.group != null ? Formatting.GRAY + " | Group: " + Formatting.WHITE + target.group : "")), false);
+        int offset = Schedules.offsetSeconds(target);
+        if (offset > 0 || target.jitterSeconds > 0) {
+            source.sendFeedback(() -> Text.literal("  " + Formatting.GRAY + "Offset: " + Formatting.WHITE + "+" + offset + " s"
+                    + Formatting.GRAY + (target.offsetSeconds != null ? " (explicit)" : " (jitter window " + target.jitterSeconds + " s)")), false);
+        }
+        if (target.isClusterScoped()) {
+            ClusterEngine cluster = QuartzManager.getInstance().getCluster();
+            ClusterEngine.LastRun lastRun = cluster != null ? cluster.getLastRun(id) : null;
+            source.sendFeedback(() -> Text.literal("  " + Formatting.GRAY + "Scope: " + Formatting.WHITE + "cluster"
+                    + (cluster == null ? Formatting.YELLOW + " (clustering disabled, runs on this node)"
+                        : lastRun == null ? Formatting.GRAY + " | Never ran"
+                        : Formatting.GRAY + " | Last run on " + Formatting.WHITE + lastRun.nodeId + Formatting.GRAY + " at "
+                            + Formatting.WHITE + TIME_FORMAT.format(Instant.ofEpochMilli(lastRun.fireMillis)))), false);
+        }
+
+        CircuitBreaker breaker = QuartzManager.getInstance().getBreaker();
+        CircuitBreaker.State breakerState = breaker.getState(id);
+        if (breakerState != CircuitBreaker.State.CLOSED || breaker.getFailures(id) > 0) {
+            long openUntil = breaker.getOpenUntilMillis(id);
+            source.sendFeedback(() -> Text.literal("  " + Formatting.GRAY + "Breaker: "
+                    + (breakerState == CircuitBreaker.State.CLOSED ? Formatting.YELLOW + "closed"
+                        : breakerState == CircuitBreaker.State.OPEN ? Formatting.RED + "open until " + TIME_FORMAT.format(Instant.ofEpochMilli(openUntil))
+                        : Formatting.YELLOW + "half-open (probing)")
+                    + Formatting.GRAY + " | " + Formatting.WHITE + breaker.getFailures(id) + Formatting.GRAY + " consecutive failure(s)"), false);
+        }
+
+        CronMetrics.CronStats metrics = QuartzManager.getInstance().getMetrics().get(id);
+        if (metrics != null) sendLatencies(source, metrics);
+
+        return Command.SINGLE_SUCCESS;
+    }
+
+    private static void sendLatencies(ServerCommandSource source, CronMetrics.CronStats metrics) {
+        source.sendFeedback(() -> Text.literal("  " + Formatting.GRAY + "Latency (p50 / p95 / p99 / max):"), false);
+        sendLatency(source, "Fire lag", metrics.fireLag);
+        sendLatency(source, "Queue wait", metrics.queueWait);
+        sendLatency(source, "Execution", metrics.execution);
+        LatencyHistogram[] steps = metrics.getSteps();
+        for (int i = 0; i < steps.length; i++) sendLatency(source, "Step " + (i + 1), steps[i]);
+    }
+
+    private static void sendLatency(ServerCommandSource source, String label, LatencyHistogram histogram) {
+        source.sendFeedback(() -> Text.literal("    " + Formatting.GRAY + label + ": "
+                + Formatting.WHITE + formatMicros(histogram.percentile(50)) + Formatting.GRAY + " / "
+                + Formatting.WHITE + formatMicros(histogram.percentile(95)) + Formatting.GRAY + " / "
+                + Formatting.WHITE + formatMicros(histogram.percentile(99)) + Formatting.GRAY + " / "
+                + Formatting.WHITE + formatMicros(histogram.getMaxMicros())
+                + Formatting.GRAY + " (" + histogram.getCount() + " sample(s))"), false);
+    }
+
+    // Last executions of one cron, newest first: fire time, outcome, duration, lag behind the fire time and result
+    private static int historyCommand(CommandContext<ServerCommandSource> context, int count) {
+        ServerCommandSource source = context.getSource();
+        String id = StringArgumentType.getString(context, "id");
+        List<ExecutionHistory.Execution> executions = QuartzManager.getInstance().getHistory().latest(id, count);
+
+        if (executions.isEmpty()) {
+            source.sendFeedback(() -> Text.literal(QUARTZ_TAG + Formatting.GRAY + "No recorded executions for '" + Formatting.WHITE + id + Formatting.GRAY + "'."), false);
+            return 0;
+        }
+
+        source.sendFeedback(() -> Text.literal(QUARTZ_TAG + Formatting.GRAY + "Last " + executions.size() + " execution(s) of " + Formatting.WHITE + id + Formatting.GRAY + ":"), false);
+        for (ExecutionHistory.Execution execution : executions) {
+            source.sendFeedback(() -> Text.literal("  " + Formatting.WHITE + TIME_FORMAT.format(Instant.ofEpochMilli(execution.fireMillis)) + " "
+                    + (execution.success ? Formatting.GREEN + "✔" : Formatting.RED + "✘")
+                    + Formatting.GRAY + " took " + Formatting.WHITE + formatMicros(execution.durationMicros)
+                    + Formatting.GRAY + ", lag " + Formatting.WHITE + formatMicros(Math.max(0L, execution.startMillis - execution.fireMillis) * 1_000L)
+                    + Formatting.GRAY + ", result " + Formatting.WHITE + execution.result), false);
+        }
+        return Command.SINGLE_SUCCESS;
+    }
+
+    // Writes the history off the server thread and reports back on it
+    private static int historyDumpCommand(CommandContext<ServerCommandSource> context, String format) {
+        ServerCommandSource source = context.getSource();
+        String normalized = format.toLowerCase();
+        if (!normalized.equals("csv") && !normalized.equals("binary")) {
+            source.sendError(Text.literal(QUARTZ_TAG + Formatting.RED + "Unknown format '" + format + "' (expected csv or binary)."));
+            return 0;
+        }
 
+        ExecutionHistory history = QuartzManager.getInstance().getHistory();
+        int size = history.size();
+        CompletableFuture.supplyAsync(() -> {
+            try {
+                return history.dump(config.history.dumpFile, normalized.equals("binary"));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }).whenComplete((path, error) -> source.getServer().execute(() -> {
+            if (error != null) {
+                LOGGER.error("[QuartzCommands] Failed to write execution history: {}", error.getMessage(), error);
+                source.sendError(Text.literal(QUARTZ_TAG + Formatting.RED + "Failed to write the execution history. Check the logs."));
+            } else {
+                source.sendFeedback(() -> Text.literal(QUARTZ_TAG + Formatting.GREEN + "Wrote " + size + " execution(s) to " + Formatting.WHITE + path), false);
+            }
+        }));
+        return Command.SINGLE_SUCCESS;
+    }
+
+    private static String formatMicros(long micros) {
+        if (micros < 1_000L) return micros + " µs";
+        if (micros < 1_000_000L) return String.format("%.1f ms", micros / 1_000.0);
+        return String.format("%.2f s", micros / 1_000_000.0);
+    }
+
+    // Next fires across all crons ("25" = next 25 fires, "10m" = fires in the next 10 minutes),
+    // followed by a per-minute heatmap of the busiest second over the next hour
+    private static int upcomingCommand(CommandContext<ServerCommandSource> context, String range) {
+        ServerCommandSource source = context.getSource();
+        int limit = 10;
+        long windowMillis = Long.MAX_VALUE;
+
+        if (range != null) {
+            try {
+                char unit = Character.toLowerCase(range.charAt(range.length() - 1));
+                if (Character.isDigit(unit)) {
+                    limit = Math.max(1, Math.min(MAX_UPCOMING_LINES, Integer.parseInt(range)));
+                } else {
+                    long amount = Long.parseLong(range.substring(0, range.length() - 1));
+                    long unitMillis = unit == 's' ? 1_000L : unit == 'm' ? 60_000L : unit == 'h' ? 3_600_000L : -1L;
+                    if (unitMillis < 0 || amount <= 0) throw new NumberFormatException();
+                    windowMillis = amount * unitMillis;
+                    limit = MAX_UPCOMING_LINES;
+                }
+            } catch (NumberFormatException e) {
+                source.sendError(Text.literal(QUARTZ_TAG + Formatting.RED + "Expected a number of fires (e.g. 10) or a window (e.g. 30s, 5m, 1h)."));
+                return 0;
+            }
+        }
+
+        QuartzManager manager = QuartzManager.getInstance();
+        long now = System.currentTimeMillis();
+        long until = windowMillis == Long.MAX_VALUE ? Long.MAX_VALUE : now + windowMillis;
+        FireForecast forecast = manager.forecast();
+        List<FireForecast.UpcomingFire> fires = forecast.next(limit + 1, until);
+
+        if (fires.isEmpty()) {
+            source.sendFeedback(() -> Text.literal(QUARTZ_TAG + Formatting.GRAY + "No upcoming fires."), false);
+        } else {
+            boolean more = fires.size() > limit;
+            List<FireForecast.UpcomingFire> shown = more ? fires.subList(0, limit) : fires;
+            source.sendFeedback(() -> Text.literal(QUARTZ_TAG + Formatting.GRAY + "Upcoming fires:"), false);
+            for (FireForecast.UpcomingFire fire : shown) {
+                source.sendFeedback(() -> Text.literal("  " + Formatting.WHITE + TIME_FORMAT.format(Instant.ofEpochMilli(fire.fireMillis))
+                        + Formatting.GRAY + " (in " + formatDelay(fire.fireMillis - now) + ") " + Formatting.WHITE + fire.cronId), false);
+            }
+            if (more) source.sendFeedback(() -> Text.literal("  " + Formatting.GRAY + "..."), false);
+        }
+
+        sendHeatmap(source, forecast.heatmap(), now);
+        return Command.SINGLE_SUCCESS;
+    }
+
+    // One character per minute (busiest second of that minute), two lines of 30 minutes
+    private static void sendHeatmap(ServerCommandSource source, int[] seconds, long now) {
+        int peak = 0, peakSecond = 0, total = 0;
+        int[] minutes = new int[seconds.length / 60];
+        for (int i = 0; i < seconds.length; i++) {
+            total += seconds[i];
+            minutes[i / 60] = Math.max(minutes[i / 60], seconds[i]);
+            if (seconds[i] > peak) {
+                peak = seconds[i];
+                peakSecond = i;
+            }
+        }
+        if (total == 0) return;
+
+        final int maxPerSecond = peak;
+        final int fires = total;
+        final long peakMillis = now + peakSecond * 1_000L;
+        source.sendFeedback(() -> Text.literal(QUARTZ_TAG + Formatting.GRAY + "Next hour: " + Formatting.WHITE + fires + Formatting.GRAY
+                + " fire(s), peak " + Formatting.WHITE + maxPerSecond + Formatting.GRAY + "/s at " + Formatting.WHITE
+                + TIME_FORMAT.format(Instant.ofEpochMilli(peakMillis))), false);
+        for (int line = 0; line < minutes.length; line += 30) {
+            StringBuilder row = new StringBuilder("  ");
+            Formatting last = null;
+            for (int minute = line; minute < Math.min(minutes.length, line + 30); minute++) {
+                int count = minutes[minute];
+                Formatting color = count == 0 ? Formatting.DARK_GRAY : count * 2 <= maxPerSecond ? Formatting.GREEN : count < maxPerSecond ? Formatting.YELLOW : Formatting.RED;
+                if (color != last) row.append(color);
+                last = color;
+                row.append(count == 0 ? '·' : HEATMAP_LEVELS.charAt(Math.min(HEATMAP_LEVELS.length() - 1, (count * HEATMAP_LEVELS.length() - 1) / maxPerSecond)));
+            }
+            String label = Formatting.GRAY + " +" + line + "-" + (line + 30) + " min";
+            source.sendFeedback(() -> Text.literal(row + label), false);
+        }
+    }
+
+    private static String formatDelay(long millis) {
+        long seconds = Math.max(0L, millis) / 1_000L;
+        if (seconds < 60) return seconds + "s";
+        if (seconds < 3_600) return (seconds / 60) + "m " + String.format("%02d", seconds % 60) + "s";
+        if (seconds < 86_400) return (seconds / 3_600) + "h " + String.format("%02d", (seconds % 3_600) / 60) + "m";
+        return (seconds / 86_400) + "d " + ((seconds % 86_400) / 3_600) + "h";
+    }
+
+    // Analyses the enabled schedules and suggests (or applies) per-cron offsets that flatten fire peaks
+    private static int spreadCommand(CommandContext<ServerCommandSource> context, int window, boolean apply) {
+        ServerCommandSource source = context.getSource();
+        ScheduleSpreader.SpreadPlan plan = ScheduleSpreader.plan(config.crons, window, System.currentTimeMillis());
+
+        source.sendFeedback(() -> Text.literal(QUARTZ_TAG + Formatting.GRAY + "Spread over " + Formatting.WHITE + plan.windowSeconds + " s"
+                + Formatting.GRAY + " (" + Formatting.WHITE + plan.analysed + Formatting.GRAY + " enabled cron(s)):"), false);
+        source.sendFeedback(() -> Text.literal("  " + Formatting.GRAY + "Peak fires in one second: " + Formatting.RED + plan.peakBefore
+                + Formatting.GRAY + " -> " + Formatting.GREEN + plan.peakAfter + Formatting.GRAY + " (" + Formatting.WHITE + plan.moved
+                + Formatting.GRAY + " cron(s) moved)"), false);
+
+        if (plan.moved == 0 || plan.peakAfter >= plan.peakBefore) {
+            source.sendFeedback(() -> Text.literal("  " + Formatting.GRAY + "Schedules are already spread, nothing to change."), false);
+            return Command.SINGLE_SUCCESS;
+        }
+
+        if (!apply) {
+            int shown = 0;
+            for (Map.Entry<String, Integer> offset : plan.offsets.entrySet()) {
+                QuartzConfig.CronEntry entry = config.getCronById(offset.getKey());
+                if (entry == null || Schedules.offsetSeconds(entry) == offset.getValue()) continue;
+                if (shown++ == 10) break;
+                source.sendFeedback(() -> Text.literal("    " + Formatting.WHITE + offset.getKey() + Formatting.GRAY + ": +"
+                        + Formatting.WHITE + offset.getValue() + " s"), false);
+            }
+            source.sendFeedback(() -> Text.literal("  " + Formatting.GRAY + "Run " + Formatting.WHITE + "/quartz4mc spread " + plan.windowSeconds + " apply"
+                    + Formatting.GRAY + " to apply these offsets."), false);
+            return Command.SINGLE_SUCCESS;
+        }
+
+        for (Map.Entry<String, Integer> offset : plan.offsets.entrySet()) {
+            QuartzConfig.CronEntry entry = config.getCronById(offset.getKey());
+            if (entry == null || Schedules.offsetSeconds(entry) == offset.getValue()) continue;
+            entry.offsetSeconds = offset.getValue();
+            config.registry().update(entry);
+        }
+        config.saveAsync();
+        QuartzManager.ReloadResult result = QuartzManager.getInstance().reload(config);
+        source.sendFeedback(() -> Text.literal(QUARTZ_TAG + Formatting.GRAY + "Offsets applied, " + Formatting.WHITE + result.updated
+                + Formatting.GRAY + " cron(s) rescheduled."), true);
+        return Command.SINGLE_SUCCESS;
+    }
+
+    private static int clusterPruneCommand(CommandContext<ServerCommandSource> context) {
+        ServerCommandSource source = context.getSource();
+        int removed = QuartzManager.getInstance().pruneCluster();
+        if (removed < 0) {
+            source.sendError(Text.literal(QUARTZ_TAG + Formatting.RED + "Clustering is not running on this node."));
+            return 0;
+        }
+        source.sendFeedback(() -> Text.literal(QUARTZ_TAG + Formatting.GRAY + "Removed " + Formatting.WHITE + removed
+                + Formatting.GRAY + " cluster cron(s) no longer configured on this node, for all nodes."), true);
         return Command.SINGLE_SUCCESS;
     }
 
@@ -350,14 +737,78 @@ public class QuartzCommands {
         ServerCommandSource source = context.getSource();
         QuartzManager.QuartzManagerStats stats = QuartzManager.getInstance().getStats();
 
-        long enabledCount = config.crons.stream().filter(c -> c.enabled).count();
-        long totalCount = config.crons.size();
+        long enabledCount = config.registry().enabledCount();
+        long totalCount = config.registry().size();
 
         source.sendFeedback(() -> Text.literal(QUARTZ_TAG + Formatting.GRAY + "Status:"), false);
-        source.sendFeedback(() -> Text.literal("  " + Formatting.GRAY + "Scheduler: " + (stats.isRunning ? Formatting.GREEN + "Running" : Formatting.RED + "Stopped")), false);
+        source.sendFeedback(() -> Text.literal("  " + Formatting.GRAY + "Scheduler: " + (stats.isRunning ? Formatting.GREEN + "Running" : Formatting.RED + "Stopped")
+                + Formatting.GRAY + " (" + Formatting.WHITE + stats.engine + Formatting.GRAY + " engine)"), false);
         source.sendFeedback(() -> Text.literal("  " + Formatting.GRAY + "Total crons: " + Formatting.WHITE + totalCount), false);
         source.sendFeedback(() -> Text.literal("  " + Formatting.GRAY + "Enabled: " + Formatting.GREEN + enabledCount + Formatting.WHITE + "/" + totalCount + " cron(s)"), false);
 
+        CronDispatcher.DispatcherStats dispatch = QuartzManager.getInstance().getDispatcher().getStats();
+        source.sendFeedback(() -> Text.literal("  " + Formatting.GRAY + "Dispatch queue: " + Formatting.WHITE + dispatch.queueDepth
+                + Formatting.GRAY + " pending (peak " + Formatting.WHITE + dispatch.peakQueueDepth + Formatting.GRAY + "), "
+                + Formatting.WHITE + QuartzManager.getInstance().getDispatcher().getDelayedCount() + Formatting.GRAY + " waiting for their offset"), false);
+        source.sendFeedback(() -> Text.literal("  " + Formatting.GRAY + "Tick budget: " + Formatting.WHITE + (dispatch.tickBudgetNanos / 1_000L) + " µs"
+                + Formatting.GRAY + " | Last tick: " + Formatting.WHITE + dispatch.lastTickExecuted + Formatting.GRAY + " run, "
+                + (dispatch.lastTickDeferred > 0 ? Formatting.YELLOW : Formatting.WHITE) + dispatch.lastTickDeferred + Formatting.GRAY + " deferred ("
+                + Formatting.WHITE + (dispatch.lastTickNanos / 1_000L) + " µs" + Formatting.GRAY + ")"), false);
+        source.sendFeedback(() -> Text.literal("  " + Formatting.GRAY + "Dispatched: " + Formatting.WHITE + dispatch.totalExecuted
+                + Formatting.GRAY + " | Deferred by the tick budget: " + Formatting.WHITE + dispatch.totalDeferred
+                + Formatting.GRAY + " over " + Formatting.WHITE + dispatch.ticksOverBudget + Formatting.GRAY + " tick(s)"), false);
+
+        LoadGovernor governor = QuartzManager.getInstance().getGovernor();
+        if (governor.isEnabled()) {
+            source.sendFeedback(() -> Text.literal("  " + Formatting.GRAY + "Governor: " + (governor.isOverloaded() ? Formatting.YELLOW : Formatting.GREEN)
+                    + String.format("%.1f", governor.getRecentMspt()) + " mspt" + Formatting.GRAY + " (target " + Formatting.WHITE
+                    + String.format("%.1f", governor.getMsptTarget()) + Formatting.GRAY + ") | Held back: "
+                    + (dispatch.lastTickThrottled > 0 ? Formatting.YELLOW : Formatting.WHITE) + dispatch.lastTickThrottled + Formatting.GRAY + " now, "
+                    + Formatting.WHITE + dispatch.totalThrottled + Formatting.GRAY + " total"), false);
+        }
+        source.sendFeedback(() -> Text.literal("  " + Formatting.GRAY + "Shed: " + (dispatch.totalShed > 0 ? Formatting.RED : Formatting.WHITE) + dispatch.totalShed
+                + Formatting.GRAY + " | Coalesced: " + Formatting.WHITE + dispatch.totalCoalesced), false);
+        CircuitBreaker breaker = QuartzManager.getInstance().getBreaker();
+        int openBreakers = breaker.getOpenCount();
+        source.sendFeedback(() -> Text.literal("  " + Formatting.GRAY + "Circuit breakers: " + (openBreakers > 0 ? Formatting.RED : Formatting.WHITE) + openBreakers
+                + Formatting.GRAY + " open | Fires dropped: " + Formatting.WHITE + breaker.getTotalRejected()), false);
+        for (ConcurrencyGroup.GroupStats group : QuartzManager.getInstance().getDispatcher().getGroupStats()) {
+            source.sendFeedback(() -> Text.literal("  " + Formatting.GRAY + "Group " + Formatting.WHITE + group.name + Formatting.GRAY + ": "
+                    + Formatting.WHITE + group.inFlight + "/" + group.maxConcurrent + Formatting.GRAY + " running"
+                    + (group.minIntervalTicks > 0 ? ", 1 per " + group.minIntervalTicks + " tick(s)" : "") + " | Waiting: "
+                    + (group.queueDepth > 0 ? Formatting.YELLOW : Formatting.WHITE) + group.queueDepth
+                    + Formatting.GRAY + " (" + Formatting.WHITE + group.totalQueued + Formatting.GRAY + " total) | Wait p50/p99: "
+                    + Formatting.WHITE + formatMicros(group.waitP50Micros) + Formatting.GRAY + " / " + Formatting.WHITE + formatMicros(group.waitP99Micros)), false);
+        }
+
+        ClusterEngine cluster = QuartzManager.getInstance().getCluster();
+        if (cluster != null) {
+            long now = System.currentTimeMillis();
+            List<ClusterEngine.NodeStats> nodes = cluster.getNodes();
+            source.sendFeedback(() -> Text.literal("  " + Formatting.GRAY + "Cluster: " + (cluster.isRunning() ? Formatting.GREEN + "joined" : Formatting.RED + "not joined")
+                    + Formatting.GRAY + " as " + Formatting.WHITE + cluster.getNodeId() + Formatting.GRAY + " | "
+                    + Formatting.WHITE + cluster.getScheduledCount() + Formatting.GRAY + " cluster cron(s), "
+                    + Formatting.WHITE + nodes.size() + Formatting.GRAY + " node(s)"), false);
+            for (ClusterEngine.NodeStats node : nodes) {
+                source.sendFeedback(() -> Text.literal("    " + (node.alive ? Formatting.GREEN + "✔ " : Formatting.RED + "✘ ")
+                        + Formatting.WHITE + node.nodeId + (node.local ? Formatting.GRAY + " (this node)" : "")
+                        + Formatting.GRAY + " | Checked in " + Formatting.WHITE + formatDelay(now - node.lastCheckinMillis) + Formatting.GRAY + " ago"
+                        + " | Ran the last fire of " + Formatting.WHITE + node.lastRuns + Formatting.GRAY + " cron(s)"), false);
+            }
+        }
+
+        CronMetrics metrics = QuartzManager.getInstance().getMetrics();
+        if (metrics.isEnabled() && metrics.getTotal().execution.getCount() > 0) {
+            sendLatencies(source, metrics.getTotal());
+            source.sendFeedback(() -> Text.literal("  " + Formatting.GRAY + "Most server thread time:"), false);
+            for (Map.Entry<String, CronMetrics.CronStats> top : metrics.topByExecutionTime(3)) {
+                LatencyHistogram execution = top.getValue().execution;
+                source.sendFeedback(() -> Text.literal("    " + Formatting.WHITE + top.getKey() + Formatting.GRAY + ": "
+                        + Formatting.WHITE + formatMicros(execution.getSumMicros()) + Formatting.GRAY + " total over "
+                        + Formatting.WHITE + execution.getCount() + Formatting.GRAY + " run(s)"), false);
+            }
+        }
+
         return Command.SINGLE_SUCCESS;
     }
 }
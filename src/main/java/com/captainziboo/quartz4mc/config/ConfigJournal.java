@@ -0,0 +1,145 @@
+package com.captainziboo.quartz4mc.config;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Append-only log of cron mutations stored next to quartz4mc.json (one compact JSON record per line).
+// Records are idempotent "last value wins" writes keyed by uuid, so replaying a record whose effect is
+// already part of the snapshot is harmless.
+final class ConfigJournal {
+    private static final Logger LOGGER = LoggerFactory.getLogger("quartz4mc-config");
+    private static final Gson GSON = new Gson();
+    static final File JOURNAL_FILE = new File(QuartzConfig.CONFIG_FILE.getAbsoluteFile().getParentFile(), "quartz4mc.journal");
+
+    static final String OP_PUT = "put";
+    static final String OP_REMOVE = "remove";
+    static final String OP_ENABLED = "enabled";
+
+    private ConfigJournal() {}
+
+    static String put(QuartzConfig.CronEntry entry) {
+        return GSON.toJson(new Record(OP_PUT, entry.uuid, null, entry));
+    }
+
+    static String remove(QuartzConfig.CronEntry entry) {
+        return GSON.toJson(new Record(OP_REMOVE, entry.uuid, null, null));
+    }
+
+    static String enabled(QuartzConfig.CronEntry entry, boolean enabled) {
+        return GSON.toJson(new Record(OP_ENABLED, entry.uuid, enabled, null));
+    }
+
+    static void append(List<String> records) throws IOException {
+        if (records.isEmpty()) return;
+        if (!JOURNAL_FILE.getParentFile().exists()) JOURNAL_FILE.getParentFile().mkdirs();
+        try (Writer writer = Files.newBufferedWriter(JOURNAL_FILE.toPath(), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE)) {
+            for (String record : records) {
+                writer.write(record);
+                writer.write('\n');
+            }
+        }
+    }
+
+    static long size() {
+        return JOURNAL_FILE.length();
+    }
+
+    static void delete() throws IOException {
+        Files.deleteIfExists(JOURNAL_FILE.toPath());
+    }
+
+    // Applies the journal on top of the snapshot. Returns the number of records replayed.
+    static int replay(QuartzConfig config) {
+        return replay(config, List.of());
+    }
+
+    // Same, then applies records that could not be appended to the journal file
+    static int replay(QuartzConfig config, List<String> unwritten) {
+        if (!JOURNAL_FILE.exists() && unwritten.isEmpty()) return 0;
+
+        // Keyed by uuid, in config order
+        Map<String, QuartzConfig.CronEntry> entries = new LinkedHashMap<>();
+        int anonymous = 0;
+        for (QuartzConfig.CronEntry entry : config.crons) {
+            if (entry == null) continue;
+            entries.put(entry.uuid != null ? entry.uuid : "\0" + anonymous++, entry);
+        }
+
+        int replayed = 0;
+        if (JOURNAL_FILE.exists()) {
+            try (BufferedReader reader = Files.newBufferedReader(JOURNAL_FILE.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) continue;
+                    Record record;
+                    try {
+                        record = GSON.fromJson(line, Record.class);
+                    } catch (JsonParseException e) {
+                        // Torn write from a crash: everything before it is still valid
+                        LOGGER.warn("[ConfigJournal] Stopping replay at unreadable record {}: {}", replayed + 1, e.getMessage());
+                        break;
+                    }
+                    if (record != null && apply(entries, record)) replayed++;
+                }
+            } catch (IOException e) {
+                LOGGER.error("[ConfigJournal] Error reading journal: {}", e.getMessage(), e);
+            }
+        }
+        for (String line : unwritten) {
+            if (apply(entries, GSON.fromJson(line, Record.class))) replayed++;
+        }
+
+        config.crons = new ArrayList<>(entries.values());
+        return replayed;
+    }
+
+    private static boolean apply(Map<String, QuartzConfig.CronEntry> entries, Record record) {
+        if (record.op == null || record.uuid == null) return false;
+
+        switch (record.op) {
+            case OP_PUT:
+                if (record.entry == null) return false;
+                entries.put(record.uuid, record.entry);
+                return true;
+            case OP_REMOVE:
+                entries.remove(record.uuid);
+                return true;
+            case OP_ENABLED:
+                QuartzConfig.CronEntry entry = entries.get(record.uuid);
+                if (entry != null && record.enabled != null) entry.enabled = record.enabled;
+                return true;
+            default:
+                LOGGER.warn("[ConfigJournal] Unknown journal operation '{}'", record.op);
+                return false;
+        }
+    }
+
+    private static final class Record {
+        String op;
+        String uuid;
+        Boolean enabled;
+        QuartzConfig.CronEntry entry;
+
+        Record(String op, String uuid, Boolean enabled, QuartzConfig.CronEntry entry) {
+            this.op = op;
+            this.uuid = uuid;
+            this.enabled = enabled;
+            this.entry = entry;
+        }
+    }
+}
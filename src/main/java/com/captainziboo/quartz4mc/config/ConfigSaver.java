@@ -0,0 +1,112 @@
+package com.captainziboo.quartz4mc.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Single writer for QuartzConfig.saveAsync(): save requests are debounced and coalesced so a burst of
+// mutations results in one write of the latest state. In journal mode, queued journal records are
+// appended in one go and the journal is compacted into the snapshot once it grows past the threshold.
+// Requests carry JSON serialized by the caller: this thread never reads the live config.
+final class ConfigSaver {
+    private static final Logger LOGGER = LoggerFactory.getLogger("quartz4mc-config");
+    private static final long DEBOUNCE_MILLIS = 500L;
+
+    private final AtomicReference<String> pending = new AtomicReference<>();
+    private final ConcurrentLinkedQueue<String> journal = new ConcurrentLinkedQueue<>();
+    private volatile long journalCompactBytes = Long.MAX_VALUE;
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "quartz4mc-config-saver");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    void request(String json) {
+        pending.set(json);
+        schedule();
+    }
+
+    void record(String record, long compactBytes) {
+        journal.add(record);
+        journalCompactBytes = compactBytes;
+        schedule();
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            executor.schedule(this::drain, DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Writes the pending config and journal records, if any, on the calling thread.
+    // Waits for a write in progress on the saver thread.
+    synchronized void flush() {
+        flushJournal();
+        String json = pending.getAndSet(null);
+        if (json != null) {
+            LOGGER.debug("[ConfigSaver] Flushing pending configuration save");
+            QuartzConfig.write(json);
+        }
+    }
+
+    // Folds the journal into quartz4mc.json. Journal appends are serialized with this, so every record
+    // in the journal when it is deleted is already part of the snapshot.
+    synchronized void compact(QuartzConfig config) {
+        config.save();
+        try {
+            ConfigJournal.delete();
+            LOGGER.debug("[ConfigSaver] Journal compacted into configuration snapshot");
+        } catch (IOException e) {
+            LOGGER.error("[ConfigSaver] Failed to delete compacted journal: {}", e.getMessage(), e);
+        }
+    }
+
+    private void flushJournal() {
+        if (journal.isEmpty()) return;
+
+        List<String> records = new ArrayList<>();
+        String record;
+        while ((record = journal.poll()) != null) records.add(record);
+
+        try {
+            ConfigJournal.append(records);
+        } catch (IOException e) {
+            LOGGER.error("[ConfigSaver] Failed to append {} journal record(s), writing a full snapshot instead: {}", records.size(), e.getMessage(), e);
+            compactFromDisk(records);
+            return;
+        }
+
+        if (ConfigJournal.size() >= journalCompactBytes) compactFromDisk(List.of());
+    }
+
+    // Snapshot rebuilt from quartz4mc.json and the journal (plus records that could not be appended),
+    // which hold every mutation saved so far, rather than from the config the server thread is editing
+    private void compactFromDisk(List<String> unwritten) {
+        try {
+            QuartzConfig snapshot = QuartzConfig.read(QuartzConfig.CONFIG_FILE.toPath());
+            ConfigJournal.replay(snapshot, unwritten);
+            compact(snapshot);
+        } catch (IOException e) {
+            LOGGER.error("[ConfigSaver] Failed to read the configuration to compact the journal: {}", e.getMessage(), e);
+        }
+    }
+
+    private void drain() {
+        scheduled.set(false);
+        try {
+            flush();
+        } catch (Exception e) {
+            LOGGER.error("[ConfigSaver] Async save failed: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.captainziboo.quartz4mc.config;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+// Indexes QuartzConfig.crons by id and uuid and keeps the enabled/disabled id sets up to date.
+// A sorted copy of the id index serves prefix lookups (listing, search, tab completion).
+// Reads are lock-free and safe from any thread; mutations are serialized on the registry.
+public class CronRegistry {
+    private final List<QuartzConfig.CronEntry> entries;
+    private final Map<String, QuartzConfig.CronEntry> byId = new ConcurrentHashMap<>();
+    private final Map<String, QuartzConfig.CronEntry> byUuid = new ConcurrentHashMap<>();
+    private final NavigableMap<String, QuartzConfig.CronEntry> sorted = new ConcurrentSkipListMap<>();
+    private final Set<String> enabledIds = ConcurrentHashMap.newKeySet();
+    private final Set<String> disabledIds = ConcurrentHashMap.newKeySet();
+    private volatile Listener listener;
+    private volatile long version; // Bumped by every mutation
+
+    CronRegistry(List<QuartzConfig.CronEntry> entries) {
+        this.entries = entries;
+        rebuild();
+    }
+
+    public synchronized void rebuild() {
+        byId.clear();
+        byUuid.clear();
+        sorted.clear();
+        enabledIds.clear();
+        disabledIds.clear();
+        for (QuartzConfig.CronEntry entry : entries) {
+            if (entry == null || entry.id == null || byId.containsKey(entry.id)) continue;
+            index(entry);
+        }
+        version++;
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    private void index(QuartzConfig.CronEntry entry) {
+        byId.put(entry.id, entry);
+        sorted.put(entry.id, entry);
+        if (entry.uuid != null) byUuid.put(entry.uuid, entry);
+        (entry.enabled ? enabledIds : disabledIds).add(entry.id);
+    }
+
+    public QuartzConfig.CronEntry getById(String id) {
+        return id == null ? null : byId.get(id);
+    }
+
+    public QuartzConfig.CronEntry getByUuid(String uuid) {
+        return uuid == null ? null : byUuid.get(uuid);
+    }
+
+    public boolean contains(String id) {
+        return id != null && byId.containsKey(id);
+    }
+
+    // Returns false if a cron with the same id already exists
+    public synchronized boolean add(QuartzConfig.CronEntry entry) {
+        if (entry == null || entry.id == null || byId.containsKey(entry.id)) return false;
+        entries.add(entry);
+        index(entry);
+        version++;
+        if (listener != null) listener.onPut(entry);
+        return true;
+    }
+
+    public synchronized boolean remove(QuartzConfig.CronEntry entry) {
+        if (entry == null || byId.get(entry.id) != entry) return false;
+        entries.remove(entry);
+        byId.remove(entry.id);
+        sorted.remove(entry.id);
+        if (entry.uuid != null) byUuid.remove(entry.uuid);
+        enabledIds.remove(entry.id);
+        disabledIds.remove(entry.id);
+        version++;
+        if (listener != null) listener.onRemove(entry);
+        return true;
+    }
+
+    public synchronized void setEnabled(QuartzConfig.CronEntry entry, boolean enabled) {
+        entry.enabled = enabled;
+        if (byId.get(entry.id) != entry) return;
+        if (enabled) {
+            disabledIds.remove(entry.id);
+            enabledIds.add(entry.id);
+        } else {
+            enabledIds.remove(entry.id);
+            disabledIds.add(entry.id);
+        }
+        version++;
+        if (listener != null) listener.onEnabledChanged(entry, enabled);
+    }
+
+    // Call after changing fields of an indexed entry in place (other than id and enabled)
+    public synchronized void update(QuartzConfig.CronEntry entry) {
+        if (byId.get(entry.id) != entry) return;
+        version++;
+        if (listener != null) listener.onPut(entry);
+    }
+
+    // Crons whose id starts with prefix ("" for all), in id order. Only the matching range of the index is visited.
+    public Stream<QuartzConfig.CronEntry> withPrefix(String prefix) {
+        if (prefix == null || prefix.isEmpty()) return sorted.values().stream();
+        return sorted.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values().stream();
+    }
+
+    // Changes whenever a cron is added, removed, enabled, disabled or updated (caches of derived data)
+    public long getVersion() {
+        return version;
+    }
+
+    public Set<String> getEnabledIds() {
+        return Collections.unmodifiableSet(enabledIds);
+    }
+
+    public Set<String> getDisabledIds() {
+        return Collections.unmodifiableSet(disabledIds);
+    }
+
+    public Set<String> getIds() {
+        return Collections.unmodifiableSet(byId.keySet());
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    public int enabledCount() {
+        return enabledIds.size();
+    }
+
+    // Notified after each mutation, while the registry lock is held
+    public interface Listener {
+        void onPut(QuartzConfig.CronEntry entry);
+
+        void onRemove(QuartzConfig.CronEntry entry);
+
+        void onEnabledChanged(QuartzConfig.CronEntry entry, boolean enabled);
+    }
+}
@@ -2,37 +2,163 @@ package com.captainziboo.quartz4mc.config;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
 import com.google.gson.reflect.TypeToken;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.CompletableFuture;
 import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class QuartzConfig {
     private static final Logger LOGGER = LoggerFactory.getLogger("quartz4mc-config");
     private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
-    private static final File CONFIG_FILE = new File("config/quartz4mc.json");
+    private static final Gson COMPACT_GSON = new Gson();
+    static final File CONFIG_FILE = new File(System.getProperty("quartz4mc.config", "config/quartz4mc.json"));
+    private static final Object SAVE_LOCK = new Object();
+    private static final ConfigSaver SAVER = new ConfigSaver();
 
     public int minPermissionLevel = 2;
-    public List<CronEntry> crons = new ArrayList<>();
+    public String engine = "quartz"; // "quartz" (Quartz thread pool) or "tick" (timing wheel on the server tick loop)
+    public SchedulerSettings scheduler = new SchedulerSettings();
+    public DispatcherSettings dispatcher = new DispatcherSettings();
+    public GovernorSettings governor = new GovernorSettings();
+    public BreakerSettings breaker = new BreakerSettings();
+    public PersistenceSettings persistence = new PersistenceSettings();
+    public MetricsSettings metrics = new MetricsSettings();
+    public Map<String, GroupSettings> groups = new LinkedHashMap<>(); // Concurrency groups by name
+    public HistorySettings history = new HistorySettings();
+    public ClusterSettings cluster = new ClusterSettings();
+    public ProfilingSettings profiling = new ProfilingSettings();
+    public List<CronEntry> crons = new CopyOnWriteArrayList<>();
+    private transient CronRegistry registry;
 
     public static class CronEntry {
         public String id;
         public String schedule;
         public String command;
-        public boolean enabled = true;
+        public List<PipelineStep> steps; // Ordered commands run as one unit instead of command
+        public String fanOut; // Entity selector (e.g. "@a"): command is run as each target, spread over several ticks
+        public int fanOutSlice = 0; // Targets per tick, 0 = as many as fit in the dispatcher tick budget
+        public String group; // Concurrency group (QuartzConfig.groups) limiting when this cron may run
+        public volatile boolean enabled = true;
+        public int priority = 0; // Higher priorities are dispatched first within a tick
+        public String cost = "normal"; // "light", "normal" or "heavy": how early the governor holds it back when the server lags
+        public String misfire = "skip"; // Late fires: "fire-now" (run each missed fire), "skip" or "coalesce" (run them once)
+        public String scope = "node"; // "node" (every server runs it) or "cluster" (one node of the cluster runs each fire)
+        public int jitterSeconds = 0; // > 0 delays every fire by a stable offset in [0, jitterSeconds) derived from the uuid
+        public Integer offsetSeconds; // Explicit delay (written by /quartz4mc spread apply), overrides jitterSeconds
         public String uuid = UUID.randomUUID().toString();
+
+        // Serialized form of the entry, used to detect modified crons on reload
+        public String fingerprint() {
+            return COMPACT_GSON.toJson(this);
+        }
+
+        public boolean isPipeline() {
+            return steps != null && !steps.isEmpty();
+        }
+
+        public boolean isClusterScoped() {
+            return "cluster".equalsIgnoreCase(scope);
+        }
+    }
+
+    public static class PipelineStep {
+        public String command;
+        public int delayTicks = 0; // Ticks to wait after the previous step (or the fire) before running this one
+        public boolean onlyIfSuccess = false; // Skipped unless the previous step ran and reported success
+    }
+
+    // Quartz engine only
+    public static class SchedulerSettings {
+        public String threadPool = "virtual"; // "virtual" (one virtual thread per fire) or "platform" (fixed Quartz worker threads)
+        public int threadCount = 4; // Platform: worker threads. Virtual: max fires handed over concurrently
+        public long misfireThresholdMillis = 60_000L; // Later than this, a fire counts as misfired (tick engine too)
+        public int batchTriggerAcquisitionMaxCount = 4; // Triggers due at the same time acquired in one pass
+        public long idleWaitTimeMillis = 30_000L; // How long the scheduler thread sleeps when nothing is due
+        public boolean sharedJob = false; // All crons share durable jobs, triggers only hold the cron id (large cron sets)
+        public long shutdownTimeoutMillis = 5_000L; // Server stop: wait for running fires, then drain the queue, within this time (any engine)
+    }
+
+    public static class DispatcherSettings {
+        public long tickBudgetNanos = 5_000_000L; // Main thread time spent on crons per tick (5 ms)
+        public int minExecutionsPerTick = 1; // Always run at least this many crons per tick, even over budget
+        public boolean drainOnShutdown = true; // Server stop: run queued fires before stopping, false drops them
+    }
+
+    public static class GovernorSettings {
+        public boolean enabled = true;
+        public double msptTarget = 40.0; // Recent MSPT above which heavy crons are held back
+        public double msptCritical = 50.0; // Recent MSPT above which normal crons are held back too (light crons always run)
+        public int protectedPriority = 10; // Crons at or above this priority are never held back
+        public int maxDeferTicks = 200; // Held back longer than this, "skip" fires are shed and the others run anyway
+        public int sampleTicks = 20; // Ticks averaged into the recent MSPT
+    }
+
+    public static class BreakerSettings {
+        public int failureThreshold = 5; // Consecutive failures that pause a cron (0 = never)
+        public long initialBackoffSeconds = 30; // First pause, then one probe fire
+        public long maxBackoffSeconds = 3600;
+        public double backoffMultiplier = 2.0; // Pause growth each time the probe fails
+    }
+
+    public static class GroupSettings {
+        public int maxConcurrent = 1; // Runs of the group's crons in flight at once (multi-tick pipelines and fan-outs included)
+        public int minIntervalTicks = 0; // Ticks between two starts in the group, 1 = at most one per tick
+    }
+
+    public static class ProfilingSettings {
+        public boolean jfrEvents = false; // Emit quartz4mc.CronFire / quartz4mc.CronExecution events into JFR recordings
+        public boolean profilerSections = false; // Wrap each run in a "quartz4mc:<id>" section of the vanilla profiler
+    }
+
+    public static class ClusterSettings {
+        public boolean enabled = false; // Run "cluster" scoped crons through a job store shared by all nodes
+        public String nodeId = ""; // Unique per server, empty = generated from the host name
+        public String jdbcUrl = "jdbc:h2:file:./config/quartz4mc-cluster;AUTO_SERVER=TRUE"; // H2 database shared by the nodes
+        public String user = "sa";
+        public String password = "";
+        public long checkinIntervalMillis = 7_500L; // A node missing check-ins for longer has its in-flight fires recovered
+    }
+
+    public static class HistorySettings {
+        public int capacity = 65_536; // Executions kept in memory, across all crons (0 disables the history)
+        public String dumpFile = "config/quartz4mc-history"; // ".csv" or ".bin" is appended
+        public String dumpOnShutdown = ""; // "csv" or "binary" writes the history when the server stops
+    }
+
+    public static class PersistenceSettings {
+        public String mode = "snapshot"; // "snapshot" rewrites quartz4mc.json on change, "journal" appends changes to quartz4mc.journal
+        public long journalCompactBytes = 1_048_576L; // Journal size that triggers folding it back into quartz4mc.json
+    }
+
+    public static class MetricsSettings {
+        public boolean enabled = true; // Record per-cron latency histograms
+        public String prometheusFile = ""; // Prometheus text file rewritten periodically, e.g. "config/quartz4mc.prom"
+        public int exportIntervalSeconds = 15;
+        public int httpPort = 0; // > 0 serves http://127.0.0.1:<port>/metrics
     }
 
     public static QuartzConfig load() {
+        // Don't let a pending save overwrite the file after it has been read
+        SAVER.flush();
+
         if (!CONFIG_FILE.exists()) {
             LOGGER.debug("[QuartzConfig] Configuration not found. Creating default config...");
             QuartzConfig config = createDefault();
@@ -40,14 +166,33 @@ public class QuartzConfig {
             return config;
         }
 
-        try (FileReader reader = new FileReader(CONFIG_FILE)) {
+        try (Reader reader = Files.newBufferedReader(CONFIG_FILE.toPath(), StandardCharsets.UTF_8)) {
             Type type = new TypeToken<QuartzConfig>(){}.getType();
-            QuartzConfig config = GSON.fromJson(reader, type);
+            JsonElement json = JsonParser.parseReader(reader);
+            QuartzConfig config = GSON.fromJson(json, type);
             if (config == null) {
                 LOGGER.warn("[QuartzConfig] Configuration invalid. Recreating default config...");
                 config = createDefault();
                 config.save();
             }
+            fillMissingSections(config);
+
+            // Mutations left in the journal by the last run are folded back into the snapshot
+            if (ConfigJournal.JOURNAL_FILE.exists()) {
+                int replayed = ConfigJournal.replay(config);
+                LOGGER.debug("[QuartzConfig] Replayed {} journal record(s)", replayed);
+                SAVER.compact(config);
+            }
+
+            // Crons written by hand without a uuid got a random one: keep it, or every reload would see a new cron
+            int generated = countMissingUuids(json);
+            if (generated > 0) {
+                LOGGER.info("[QuartzConfig] Generated a uuid for {} cron(s), saving the configuration", generated);
+                config.save();
+            }
+
+            // Gson fills in a plain ArrayList: swap it for a list that can be iterated while commands mutate it
+            config.crons = new CopyOnWriteArrayList<>(config.crons);
             return config;
         } catch (IOException e) {
             LOGGER.error("[QuartzConfig] Error reading config: {}", e.getMessage(), e);
@@ -57,26 +202,86 @@ public class QuartzConfig {
         }
     }
 
+    // Reads a configuration file without creating, saving or journaling anything (offline tools)
+    public static QuartzConfig read(Path file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            QuartzConfig config = GSON.fromJson(reader, QuartzConfig.class);
+            if (config == null) throw new IOException("Empty configuration: " + file);
+            fillMissingSections(config);
+            config.crons = new CopyOnWriteArrayList<>(config.crons);
+            return config;
+        }
+    }
+
+    private static int countMissingUuids(JsonElement json) {
+        if (!json.isJsonObject() || !json.getAsJsonObject().has("crons") || !json.getAsJsonObject().get("crons").isJsonArray()) return 0;
+        int missing = 0;
+        for (JsonElement cron : json.getAsJsonObject().getAsJsonArray("crons")) {
+            if (cron.isJsonObject() && (!cron.getAsJsonObject().has("uuid") || cron.getAsJsonObject().get("uuid").isJsonNull())) missing++;
+        }
+        return missing;
+    }
+
+    // Sections missing from older files (Gson leaves them null)
+    private static void fillMissingSections(QuartzConfig config) {
+        if (config.crons == null) config.crons = new ArrayList<>();
+        for (CronEntry entry : config.crons) {
+            if (entry != null && entry.uuid == null) entry.uuid = UUID.randomUUID().toString(); // "uuid": null
+        }
+        if (config.persistence == null) config.persistence = new PersistenceSettings();
+        if (config.scheduler == null) config.scheduler = new SchedulerSettings();
+        if (config.governor == null) config.governor = new GovernorSettings();
+        if (config.groups == null) config.groups = new LinkedHashMap<>();
+        if (config.breaker == null) config.breaker = new BreakerSettings();
+        if (config.history == null) config.history = new HistorySettings();
+        if (config.cluster == null) config.cluster = new ClusterSettings();
+        if (config.profiling == null) config.profiling = new ProfilingSettings();
+    }
+
     public void save() {
-        try {
-            if (!CONFIG_FILE.getParentFile().exists()) CONFIG_FILE.getParentFile().mkdirs();
-            try (FileWriter writer = new FileWriter(CONFIG_FILE)) {
-                GSON.toJson(this, writer);
+        write(GSON.toJson(this));
+    }
+
+    // Writes to a temporary file then moves it over the config, so a crash mid-write never truncates it
+    static void write(String json) {
+        synchronized (SAVE_LOCK) {
+            try {
+                if (!CONFIG_FILE.getParentFile().exists()) CONFIG_FILE.getParentFile().mkdirs();
+                Path target = CONFIG_FILE.toPath();
+                Path temp = target.resolveSibling(CONFIG_FILE.getName() + ".tmp");
+                try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                    writer.write(json);
+                }
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+                LOGGER.debug("[QuartzConfig] Configuration saved successfully to {}", CONFIG_FILE.getPath());
+            } catch (IOException e) {
+                LOGGER.error("[QuartzConfig] Failed to save configuration: {}", e.getMessage(), e);
             }
-            LOGGER.debug("[QuartzConfig] Configuration saved successfully to {}", CONFIG_FILE.getPath());
-        } catch (IOException e) {
-            LOGGER.error("[QuartzConfig] Failed to save configuration: {}", e.getMessage(), e);
         }
     }
 
+    // Debounced: bursts of changes are coalesced into a single write by the saver thread. The config is
+    // serialized here, on the thread that changed it, so the saver never reads entries while they are edited.
+    // In journal mode, registry mutations are already journaled and the snapshot is only rewritten on compaction.
     public void saveAsync() {
-        CompletableFuture.runAsync(() -> {
-            try {
-                save();
-            } catch (Exception e) {
-                LOGGER.error("[QuartzConfig] Async save failed: {}", e.getMessage(), e);
-            }
-        });
+        if (!isJournalMode()) SAVER.request(GSON.toJson(this));
+    }
+
+    public boolean isJournalMode() {
+        return persistence != null && "journal".equalsIgnoreCase(persistence.mode);
+    }
+
+    long getJournalCompactBytes() {
+        return persistence != null ? persistence.journalCompactBytes : new PersistenceSettings().journalCompactBytes;
+    }
+
+    // Writes any pending async save synchronously (server shutdown)
+    public static void flushPendingSaves() {
+        SAVER.flush();
     }
 
     private static QuartzConfig createDefault() {
@@ -89,7 +294,36 @@ public class QuartzConfig {
         return config;
     }
 
+    public synchronized CronRegistry registry() {
+        if (registry == null) {
+            registry = new CronRegistry(crons);
+            if (isJournalMode()) registry.setListener(new JournalListener());
+        }
+        return registry;
+    }
+
+    private final class JournalListener implements CronRegistry.Listener {
+        @Override
+        public void onPut(CronEntry entry) {
+            SAVER.record(ConfigJournal.put(entry), getJournalCompactBytes());
+        }
+
+        @Override
+        public void onRemove(CronEntry entry) {
+            SAVER.record(ConfigJournal.remove(entry), getJournalCompactBytes());
+        }
+
+        @Override
+        public void onEnabledChanged(CronEntry entry, boolean enabled) {
+            SAVER.record(ConfigJournal.enabled(entry, enabled), getJournalCompactBytes());
+        }
+    }
+
     public CronEntry getCronById(String id) {
-        return crons.stream().filter(c -> c.id.equals(id)).findFirst().orElse(null);
+        return registry().getById(id);
+    }
+
+    public CronEntry getCronByUuid(String uuid) {
+        return registry().getByUuid(uuid);
     }
 }
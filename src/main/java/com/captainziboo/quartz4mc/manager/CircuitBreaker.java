@@ -0,0 +1,147 @@
+package com.captainziboo.quartz4mc.manager;
+
+import com.captainziboo.quartz4mc.config.QuartzConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Per-cron circuit breaker replacing the permanent auto-disable. After failureThreshold failures in a
+// row the breaker opens and the cron's fires are dropped before reaching the dispatcher. Once the
+// backoff has elapsed a single probe fire is let through (half-open): success closes the breaker,
+// failure opens it again for backoff * multiplier (up to maxBackoff). Crons that never failed have
+// no state, so the healthy path is a single map lookup.
+public class CircuitBreaker {
+    private static final Logger LOGGER = LoggerFactory.getLogger("quartz4mc-breaker");
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final Map<String, CronState> states = new ConcurrentHashMap<>();
+    private final AtomicLong totalRejected = new AtomicLong();
+    private volatile int failureThreshold = 5;
+    private volatile long initialBackoffMillis = 30_000L;
+    private volatile long maxBackoffMillis = 3_600_000L;
+    private volatile double backoffMultiplier = 2.0;
+
+    public void configure(QuartzConfig.BreakerSettings settings) {
+        if (settings == null) settings = new QuartzConfig.BreakerSettings();
+        this.failureThreshold = Math.max(0, settings.failureThreshold);
+        this.initialBackoffMillis = Math.max(1L, settings.initialBackoffSeconds) * 1_000L;
+        this.maxBackoffMillis = Math.max(initialBackoffMillis, settings.maxBackoffSeconds * 1_000L);
+        this.backoffMultiplier = Math.max(1.0, settings.backoffMultiplier);
+    }
+
+    // Called for every fire, from any thread. False drops the fire.
+    public boolean allow(String cronId, long nowMillis) {
+        CronState state = states.get(cronId);
+        if (state == null) return true;
+        synchronized (state) {
+            switch (state.state) {
+                case CLOSED:
+                    return true;
+                case OPEN:
+                    if (nowMillis < state.openUntilMillis) break;
+                    state.state = State.HALF_OPEN;
+                    state.probeStartedMillis = nowMillis;
+                    LOGGER.debug("[CircuitBreaker] Cron '{}' half-open, probing with one fire", cronId);
+                    return true;
+                default:
+                    // A probe whose result never came back (shed, dropped on shutdown) is retried after a backoff
+                    if (nowMillis - state.probeStartedMillis < state.backoffMillis) break;
+                    state.probeStartedMillis = nowMillis;
+                    return true;
+            }
+        }
+        totalRejected.incrementAndGet();
+        return false;
+    }
+
+    public void onSuccess(String cronId) {
+        CronState state = states.get(cronId);
+        if (state == null) return;
+        synchronized (state) {
+            if (state.state != State.CLOSED) LOGGER.info("[CircuitBreaker] Cron '{}' recovered, breaker closed", cronId);
+        }
+        states.remove(cronId);
+    }
+
+    // Returns the state after the failure
+    public State onFailure(String cronId, long nowMillis) {
+        CronState state = states.computeIfAbsent(cronId, id -> new CronState());
+        synchronized (state) {
+            state.failures++;
+            if (state.state == State.HALF_OPEN) {
+                state.backoffMillis = Math.min(maxBackoffMillis, (long) (state.backoffMillis * backoffMultiplier));
+                open(cronId, state, nowMillis);
+            } else if (state.state == State.CLOSED && failureThreshold > 0 && state.failures >= failureThreshold) {
+                state.backoffMillis = initialBackoffMillis;
+                open(cronId, state, nowMillis);
+            }
+            return state.state;
+        }
+    }
+
+    private void open(String cronId, CronState state, long nowMillis) {
+        state.state = State.OPEN;
+        state.openUntilMillis = nowMillis + state.backoffMillis;
+        LOGGER.warn("[CircuitBreaker] Cron '{}' paused for {} s after {} consecutive failure(s)", cronId, state.backoffMillis / 1_000L, state.failures);
+    }
+
+    public void remove(String cronId) {
+        states.remove(cronId);
+    }
+
+    public void clear() {
+        states.clear();
+    }
+
+    public State getState(String cronId) {
+        CronState state = states.get(cronId);
+        if (state == null) return State.CLOSED;
+        synchronized (state) {
+            return state.state;
+        }
+    }
+
+    public int getFailures(String cronId) {
+        CronState state = states.get(cronId);
+        return state != null ? state.failures : 0;
+    }
+
+    // Epoch millis the breaker stays open until, or 0 when it is not open
+    public long getOpenUntilMillis(String cronId) {
+        CronState state = states.get(cronId);
+        if (state == null) return 0L;
+        synchronized (state) {
+            return state.state == State.OPEN ? state.openUntilMillis : 0L;
+        }
+    }
+
+    public int getOpenCount() {
+        int open = 0;
+        for (CronState state : states.values()) {
+            synchronized (state) {
+                if (state.state != State.CLOSED) open++;
+            }
+        }
+        return open;
+    }
+
+    public long getTotalRejected() {
+        return totalRejected.get();
+    }
+
+    public int getFailureThreshold() {
+        return failureThreshold;
+    }
+
+    private static final class CronState {
+        State state = State.CLOSED;
+        int failures;
+        long backoffMillis;
+        long openUntilMillis;
+        long probeStartedMillis;
+    }
+}
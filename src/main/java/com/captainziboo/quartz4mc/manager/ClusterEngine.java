@@ -0,0 +1,415 @@
+package com.captainziboo.quartz4mc.manager;
+
+import com.captainziboo.quartz4mc.config.QuartzConfig;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.quartz.*;
+import org.quartz.impl.StdSchedulerFactory;
+import org.quartz.impl.jdbcjobstore.JobStoreTX;
+import org.quartz.impl.jdbcjobstore.StdJDBCDelegate;
+import org.quartz.impl.matchers.GroupMatcher;
+import org.quartz.listeners.JobListenerSupport;
+import org.quartz.utils.ConnectionProvider;
+import org.quartz.utils.DBConnectionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Cluster-scoped crons: a second Quartz scheduler on a JDBC job store (H2) shared by every node. All nodes
+// schedule the same triggers; Quartz's row locks let exactly one of them acquire each fire, and the node
+// that ran it is recorded in QUARTZ4MC_RUNS. Triggers only carry the cron id (as in shared-job mode):
+// the command is read from the local config when the fire reaches QuartzManager.
+public class ClusterEngine implements CronEngine {
+    private static final Logger LOGGER = LoggerFactory.getLogger("quartz4mc-cluster");
+    static final String NAME = "cluster";
+    static final String GROUP = "quartz4mc-cluster";
+    private static final String INSTANCE_NAME = "Quartz4MC-cluster";
+    private static final String DATA_SOURCE = "quartz4mc-cluster";
+    private static final String SCHEMA = "/quartz4mc-cluster-h2.sql";
+    // Quartz considers a node failed once it missed its check-in by this much
+    private static final long CHECKIN_GRACE_MILLIS = 7_500L;
+
+    private final Set<String> scheduled = ConcurrentHashMap.newKeySet();
+    private final QuartzConfig.ClusterSettings settings;
+    private final Properties properties;
+    private Scheduler scheduler;
+    private volatile boolean running = false;
+    private volatile String nodeId = "";
+
+    ClusterEngine(QuartzConfig.ClusterSettings settings, QuartzConfig.SchedulerSettings schedulerSettings) {
+        this.settings = settings;
+        this.properties = buildProperties(settings, schedulerSettings);
+    }
+
+    // Same thread pool as the node's Quartz engine, on a clustered JDBC job store
+    static Properties buildProperties(QuartzConfig.ClusterSettings settings, QuartzConfig.SchedulerSettings schedulerSettings) {
+        Properties properties = QuartzEngine.buildProperties(schedulerSettings);
+        String nodeId = settings.nodeId == null || settings.nodeId.isBlank() ? "AUTO" : settings.nodeId.trim();
+        properties.setProperty("org.quartz.scheduler.instanceName", INSTANCE_NAME);
+        properties.setProperty("org.quartz.scheduler.instanceId", nodeId);
+        properties.setProperty("org.quartz.jobStore.class", JobStoreTX.class.getName());
+        properties.setProperty("org.quartz.jobStore.driverDelegateClass", StdJDBCDelegate.class.getName());
+        properties.setProperty("org.quartz.jobStore.dataSource", DATA_SOURCE);
+        properties.setProperty("org.quartz.jobStore.tablePrefix", "QRTZ_");
+        properties.setProperty("org.quartz.jobStore.isClustered", "true");
+        properties.setProperty("org.quartz.jobStore.clusterCheckinInterval", Long.toString(Math.max(1_000L, settings.checkinIntervalMillis)));
+        properties.setProperty("org.quartz.jobStore.useProperties", "true");
+        properties.setProperty("org.quartz.jobStore.acquireTriggersWithinLock", "true");
+        properties.setProperty("org.quartz.jobStore.makeThreadsDaemons", "true");
+        return properties;
+    }
+
+    // True when this engine was built from equivalent settings
+    boolean matches(QuartzConfig.ClusterSettings settings, QuartzConfig.SchedulerSettings schedulerSettings) {
+        return properties.equals(buildProperties(settings, schedulerSettings))
+                && Objects.equals(this.settings.jdbcUrl, settings.jdbcUrl)
+                && Objects.equals(this.settings.user, settings.user)
+                && Objects.equals(this.settings.password, settings.password);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean start() {
+        if (running) return true;
+        try {
+            // The pool is registered directly: Quartz would otherwise need its own pooling library
+            JdbcConnectionPool pool = JdbcConnectionPool.create(settings.jdbcUrl, settings.user, settings.password);
+            DBConnectionManager.getInstance().addConnectionProvider(DATA_SOURCE, new PoolProvider(pool));
+            try (Connection connection = pool.getConnection()) {
+                createSchema(connection);
+            }
+            scheduler = new StdSchedulerFactory(properties).getScheduler();
+            scheduler.getListenerManager().addJobListener(new RunRecorder(), GroupMatcher.jobGroupEquals(GROUP));
+            scheduler.start();
+            nodeId = scheduler.getSchedulerInstanceId();
+            running = true;
+            LOGGER.info("[ClusterEngine] Joined cluster as node '{}' ({})", nodeId, settings.jdbcUrl);
+        } catch (Exception e) {
+            LOGGER.error("[ClusterEngine] Failed to join the cluster: {}", e.getMessage(), e);
+            stopScheduler(0L);
+        }
+        return running;
+    }
+
+    private static void createSchema(Connection connection) throws IOException, SQLException {
+        String script;
+        try (InputStream in = ClusterEngine.class.getResourceAsStream(SCHEMA)) {
+            if (in == null) throw new IOException("Missing " + SCHEMA);
+            script = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : script.replaceAll("(?m)^--.*$", "").split(";")) {
+                if (!sql.isBlank()) statement.execute(sql);
+            }
+        }
+    }
+
+    // Leaves the cluster. Jobs stay in the database: the other nodes keep running them.
+    @Override
+    public void shutdown(long timeoutMillis) {
+        if (running) {
+            stopScheduler(timeoutMillis);
+            LOGGER.debug("[ClusterEngine] Left the cluster");
+        }
+    }
+
+    private void stopScheduler(long timeoutMillis) {
+        try {
+            if (scheduler != null) {
+                int abandoned = QuartzEngine.shutdownWithin(scheduler, timeoutMillis);
+                if (abandoned > 0) LOGGER.warn("[ClusterEngine] {} fire(s) still running after {} ms, not waiting for them", abandoned, timeoutMillis);
+            } else {
+                DBConnectionManager.getInstance().shutdown(DATA_SOURCE);
+            }
+        } catch (Exception e) {
+            LOGGER.error("[ClusterEngine] Error stopping the cluster scheduler", e);
+        }
+        scheduler = null;
+        scheduled.clear();
+        running = false;
+    }
+
+    @Override
+    public void schedule(QuartzConfig.CronEntry entry) throws Exception {
+        Trigger trigger = buildTrigger(entry);
+        if (!keepExisting(trigger)) scheduler.scheduleJob(buildJob(entry.id), Collections.singleton(trigger), true);
+        scheduled.add(entry.id);
+    }
+
+    // Every node schedules the same triggers. One already in the database with the same schedule is kept as is:
+    // replacing it would reset its next fire time, and a cron fire another node already ran would run again.
+    // removedIds are only released locally: they are the updated crons, re-added right after with the same id.
+    @Override
+    public void applyBatch(List<String> removedIds, List<QuartzConfig.CronEntry> added) {
+        for (String id : removedIds) release(id);
+
+        Map<JobDetail, Set<? extends Trigger>> jobs = new HashMap<>();
+        List<String> scheduledIds = new ArrayList<>();
+        for (QuartzConfig.CronEntry entry : added) {
+            try {
+                Trigger trigger = buildTrigger(entry);
+                if (!keepExisting(trigger)) jobs.put(buildJob(entry.id), Collections.singleton(trigger));
+                scheduledIds.add(entry.id);
+            } catch (Exception e) {
+                LOGGER.error("[ClusterEngine] Failed to build cron '{}': {}", entry.id, e.getMessage(), e);
+            }
+        }
+
+        try {
+            if (!jobs.isEmpty()) scheduler.scheduleJobs(jobs, true);
+            scheduled.addAll(scheduledIds);
+        } catch (SchedulerException e) {
+            LOGGER.error("[ClusterEngine] Batch scheduling failed, falling back to one cron at a time: {}", e.getMessage(), e);
+            CronEngine.super.applyBatch(List.of(), added);
+        }
+    }
+
+    // Deletes the cluster jobs of every cron not in ids, for all nodes (/quartz4mc cluster prune): crons removed
+    // from the configuration file while no node was running, or on a node that was not clustered at the time.
+    // Returns the number of jobs deleted, or -1 if the database could not be cleaned up.
+    int prune(Collection<String> ids) {
+        if (!running) return -1;
+        try {
+            Set<String> keep = new HashSet<>(ids);
+            List<JobKey> stale = new ArrayList<>();
+            for (JobKey key : scheduler.getJobKeys(GroupMatcher.jobGroupEquals(GROUP))) {
+                if (!keep.contains(key.getName())) stale.add(key);
+            }
+            if (!stale.isEmpty()) scheduler.deleteJobs(stale);
+            LOGGER.info("[ClusterEngine] Removed {} cluster cron(s) no longer configured", stale.size());
+            return stale.size();
+        } catch (SchedulerException e) {
+            LOGGER.error("[ClusterEngine] Failed to clean up cluster crons: {}", e.getMessage(), e);
+            return -1;
+        }
+    }
+
+    private static JobDetail buildJob(String id) {
+        return JobBuilder.newJob(QuartzManager.MinecraftCommandJob.class)
+                .withIdentity(id, GROUP)
+                .build();
+    }
+
+    // The description identifies the schedule, to recognise the same trigger scheduled by another node
+    private static Trigger buildTrigger(QuartzConfig.CronEntry entry) throws Exception {
+        MisfirePolicy misfire = MisfirePolicy.parse(entry.misfire);
+        return TriggerBuilder.newTrigger()
+                .withIdentity(entry.id, GROUP)
+                .withDescription(entry.schedule + " | " + misfire.getName())
+                .withSchedule(QuartzEngine.buildSchedule(entry.schedule, misfire))
+                .build();
+    }
+
+    // True when the trigger is already in the database with the same schedule. A trigger paused by a stop is resumed.
+    private boolean keepExisting(Trigger trigger) throws SchedulerException {
+        Trigger existing = scheduler.getTrigger(trigger.getKey());
+        if (existing == null || !Objects.equals(existing.getDescription(), trigger.getDescription())) return false;
+        if (scheduler.getTriggerState(trigger.getKey()) == Trigger.TriggerState.PAUSED) scheduler.resumeTrigger(trigger.getKey());
+        return true;
+    }
+
+    // Stops the cron for the whole cluster: its trigger is paused in the database, so no node acquires its fires
+    // until it is scheduled again (on any node).
+    @Override
+    public boolean unschedule(String id) {
+        if (!scheduled.remove(id)) return false;
+        try {
+            scheduler.pauseTrigger(TriggerKey.triggerKey(id, GROUP));
+        } catch (SchedulerException e) {
+            LOGGER.error("[ClusterEngine] Failed to pause cron '{}': {}", id, e.getMessage(), e);
+        }
+        return true;
+    }
+
+    // Deletes the cron's job and trigger from the database, for every node (cron removed from the config)
+    boolean delete(String id) {
+        boolean wasScheduled = scheduled.remove(id);
+        if (!running) return wasScheduled;
+        try {
+            if (scheduler.deleteJob(JobKey.jobKey(id, GROUP))) LOGGER.debug("[ClusterEngine] Deleted cron '{}' from the cluster", id);
+        } catch (SchedulerException e) {
+            LOGGER.error("[ClusterEngine] Failed to delete cron '{}': {}", id, e.getMessage(), e);
+        }
+        return wasScheduled;
+    }
+
+    // Forgets the cron locally (update, cluster settings change), leaving its trigger as is in the database
+    boolean release(String id) {
+        return scheduled.remove(id);
+    }
+
+    @Override
+    public boolean isScheduled(String id) {
+        return scheduled.contains(id);
+    }
+
+    @Override
+    public int getScheduledCount() {
+        return scheduled.size();
+    }
+
+    @Override
+    public long getNextFireMillis(String id) {
+        Scheduler current = scheduler;
+        if (current == null || !isScheduled(id)) return -1L;
+        try {
+            Trigger trigger = current.getTrigger(TriggerKey.triggerKey(id, GROUP));
+            Date next = trigger != null ? trigger.getNextFireTime() : null;
+            return next != null ? next.getTime() : -1L;
+        } catch (SchedulerException e) {
+            return -1L;
+        }
+    }
+
+    @Override
+    public Map<String, String> describe() {
+        Map<String, String> keys = new ConcurrentHashMap<>();
+        for (String id : scheduled) keys.put(id, GROUP + "." + id);
+        return keys;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Nodes that checked in with the cluster, with how many crons each ran last. Queries the database.
+    public List<NodeStats> getNodes() {
+        List<NodeStats> nodes = new ArrayList<>();
+        if (!running) return nodes;
+        long now = System.currentTimeMillis();
+        try (Connection connection = DBConnectionManager.getInstance().getConnection(DATA_SOURCE)) {
+            Map<String, Integer> lastRuns = new HashMap<>();
+            try (Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT NODE_ID, COUNT(*) FROM QUARTZ4MC_RUNS GROUP BY NODE_ID")) {
+                while (rs.next()) lastRuns.put(rs.getString(1), rs.getInt(2));
+            }
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT INSTANCE_NAME, LAST_CHECKIN_TIME, CHECKIN_INTERVAL FROM QRTZ_SCHEDULER_STATE WHERE SCHED_NAME = ? ORDER BY INSTANCE_NAME")) {
+                statement.setString(1, INSTANCE_NAME);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        String node = rs.getString(1);
+                        long lastCheckin = rs.getLong(2);
+                        boolean alive = now - lastCheckin <= rs.getLong(3) + CHECKIN_GRACE_MILLIS;
+                        nodes.add(new NodeStats(node, lastCheckin, alive, node.equals(nodeId), lastRuns.getOrDefault(node, 0)));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            LOGGER.error("[ClusterEngine] Failed to read cluster nodes: {}", e.getMessage(), e);
+        }
+        return nodes;
+    }
+
+    // Node that ran the cron's last fire, or null if it never ran. Queries the database.
+    public LastRun getLastRun(String cronId) {
+        if (!running) return null;
+        try (Connection connection = DBConnectionManager.getInstance().getConnection(DATA_SOURCE);
+             PreparedStatement statement = connection.prepareStatement("SELECT NODE_ID, FIRE_TIME FROM QUARTZ4MC_RUNS WHERE CRON_ID = ?")) {
+            statement.setString(1, cronId);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? new LastRun(rs.getString(1), rs.getLong(2)) : null;
+            }
+        } catch (SQLException e) {
+            LOGGER.error("[ClusterEngine] Failed to read the last run of cron '{}': {}", cronId, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    // Records which node acquired each fire, from the Quartz worker thread (before the fire is queued)
+    private final class RunRecorder extends JobListenerSupport {
+        @Override
+        public String getName() {
+            return "quartz4mc-cluster-runs";
+        }
+
+        @Override
+        public void jobToBeExecuted(JobExecutionContext context) {
+            Date fired = context.getScheduledFireTime();
+            try (Connection connection = DBConnectionManager.getInstance().getConnection(DATA_SOURCE);
+                 PreparedStatement statement = connection.prepareStatement(
+                         "MERGE INTO QUARTZ4MC_RUNS (CRON_ID, NODE_ID, FIRE_TIME) KEY (CRON_ID) VALUES (?, ?, ?)")) {
+                statement.setString(1, context.getTrigger().getKey().getName());
+                statement.setString(2, nodeId);
+                statement.setLong(3, fired != null ? fired.getTime() : System.currentTimeMillis());
+                statement.executeUpdate();
+            } catch (SQLException e) {
+                LOGGER.debug("[ClusterEngine] Failed to record run: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static final class PoolProvider implements ConnectionProvider {
+        private final JdbcConnectionPool pool;
+
+        PoolProvider(JdbcConnectionPool pool) {
+            this.pool = pool;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return pool.getConnection();
+        }
+
+        @Override
+        public void shutdown() {
+            pool.dispose();
+        }
+
+        @Override
+        public void initialize() {}
+    }
+
+    public static class NodeStats {
+        public final String nodeId;
+        public final long lastCheckinMillis;
+        public final boolean alive;
+        public final boolean local;
+        public final int lastRuns; // Crons whose last fire ran on this node
+
+        public NodeStats(String nodeId, long lastCheckinMillis, boolean alive, boolean local, int lastRuns) {
+            this.nodeId = nodeId;
+            this.lastCheckinMillis = lastCheckinMillis;
+            this.alive = alive;
+            this.local = local;
+            this.lastRuns = lastRuns;
+        }
+    }
+
+    public static class LastRun {
+        public final String nodeId;
+        public final long fireMillis;
+
+        public LastRun(String nodeId, long fireMillis) {
+            this.nodeId = nodeId;
+            this.fireMillis = fireMillis;
+        }
+    }
+}
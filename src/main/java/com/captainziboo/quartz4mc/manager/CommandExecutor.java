@@ -0,0 +1,21 @@
+package com.captainziboo.quartz4mc.manager;
+
+import java.util.List;
+
+// Runs a cron command on the server thread. Exceptions count as cron failures.
+// Returns whether the command reported success (conditional pipeline steps depend on it).
+// Fan-out crons resolve their targets once with resolveTargets, then run the command as each one with executeAs.
+public interface CommandExecutor {
+    boolean execute(String cronId, String command) throws Exception;
+
+    // Return value of the last command run on the server thread (execution history)
+    default int getLastResult() {
+        return 0;
+    }
+
+    // Fan-out crons: the targets of an entity selector, resolved once per fire
+    List<? extends FanOutTarget> resolveTargets(String selector) throws Exception;
+
+    // Runs the command as one fan-out target (like "execute as <target> run <command>")
+    boolean executeAs(String cronId, String command, FanOutTarget target) throws Exception;
+}
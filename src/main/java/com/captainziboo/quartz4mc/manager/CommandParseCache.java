@@ -0,0 +1,164 @@
+package com.captainziboo.quartz4mc.manager;
+
+import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.ParseResults;
+import com.mojang.brigadier.StringReader;
+import net.minecraft.command.EntitySelectorReader;
+import net.minecraft.command.ReturnValueConsumer;
+import net.minecraft.entity.Entity;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.command.CommandManager;
+import net.minecraft.server.command.ServerCommandSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Keeps the Brigadier parse of each cron command so fires skip parsing (and NBT/JSON text decoding).
+// Entries are bound to the dispatcher they were parsed with: a datapack reload rebuilds the command
+// tree, so a cached parse from an older dispatcher is stale and the command is parsed again.
+public class CommandParseCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger("quartz4mc-parse-cache");
+
+    private final Map<String, CachedParse> cache = new ConcurrentHashMap<>();
+    private volatile int generation = 0;
+    private int lastResult = 0; // Server thread only
+
+    // Must be called on the server thread. Returns false if the command could not be fully parsed.
+    public boolean prepare(MinecraftServer server, String cronId, String command) {
+        return parse(server, cronId, command) != null;
+    }
+
+    // Runs on the server thread. Returns whether the command reported success.
+    public boolean execute(MinecraftServer server, String cronId, String command) {
+        return execute(server, cronId, command, null);
+    }
+
+    // Same, with the command source bound to an entity (fan-out crons): the cached parse is reused
+    // for every target, selectors like @s are only resolved when the command runs
+    public boolean execute(MinecraftServer server, String cronId, String command, Entity target) {
+        CommandManager manager = server.getCommandManager();
+        CachedParse cached = cache.get(cronId);
+
+        if (cached == null || !cached.isValid(command, manager.getDispatcher(), generation)) {
+            if (cached != null) LOGGER.debug("[CommandParseCache] Cached parse for cron '{}' is stale, parsing again", cronId);
+            cached = parse(server, cronId, command);
+        }
+
+        CommandResult result = new CommandResult();
+        if (cached == null) {
+            // Not cached: parse errors, or a call off the server thread. The regular path reports parse errors.
+            manager.executeWithPrefix(bind(server.getCommandSource(), target, result), command);
+            lastResult = result.returnValue;
+            if (!result.successful && server.isOnThread()) throw new IllegalArgumentException("Unknown or incomplete command: " + command);
+            return result.successful;
+        }
+
+        manager.execute(CommandManager.withCommandSource(cached.parse, source -> bind(source, target, result)), cached.command);
+        lastResult = result.returnValue;
+        return result.successful;
+    }
+
+    // Return value of the last command run by execute (server thread)
+    public int getLastResult() {
+        return lastResult;
+    }
+
+    private static ServerCommandSource bind(ServerCommandSource source, Entity target, CommandResult result) {
+        ServerCommandSource bound = source.withReturnValueConsumer(result);
+        return target != null ? bound.withEntity(target) : bound;
+    }
+
+    // Entities matched by a selector ("@a", "@e[type=villager]"), as the server command source sees them
+    public static List<EntityTarget> resolveTargets(MinecraftServer server, String selector) throws Exception {
+        List<? extends Entity> entities = new EntitySelectorReader(new StringReader(selector), true).read().getEntities(server.getCommandSource());
+        List<EntityTarget> targets = new ArrayList<>(entities.size());
+        for (Entity entity : entities) targets.add(new EntityTarget(entity));
+        return targets;
+    }
+
+    public void invalidate(String cronId) {
+        cache.remove(cronId);
+    }
+
+    // Pipeline crons cache one parse per step
+    public void invalidate(String cronId, int steps) {
+        for (int step = 0; step < steps; step++) cache.remove(CommandPipeline.stepKey(cronId, step));
+    }
+
+    public void invalidateAll() {
+        generation++;
+        cache.clear();
+        LOGGER.debug("[CommandParseCache] Cache invalidated");
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    private CachedParse parse(MinecraftServer server, String cronId, String command) {
+        if (server == null || command == null || !server.isOnThread()) return null;
+
+        String stripped = command.startsWith("/") ? command.substring(1) : command;
+        CommandDispatcher<ServerCommandSource> dispatcher = server.getCommandManager().getDispatcher();
+        ParseResults<ServerCommandSource> parse = dispatcher.parse(stripped, server.getCommandSource());
+
+        if (parse.getReader().canRead() || !parse.getExceptions().isEmpty()) {
+            cache.remove(cronId);
+            LOGGER.debug("[CommandParseCache] Command of cron '{}' does not parse, it will not be cached", cronId);
+            return null;
+        }
+
+        CachedParse cached = new CachedParse(command, stripped, dispatcher, generation, parse);
+        cache.put(cronId, cached);
+        return cached;
+    }
+
+    // Filled in by the command once it has run (synchronously, commands are executed from the tick loop)
+    private static final class CommandResult implements ReturnValueConsumer {
+        boolean successful;
+        int returnValue;
+
+        @Override
+        public void onResult(boolean successful, int returnValue) {
+            this.successful = successful;
+            this.returnValue = returnValue;
+        }
+    }
+
+    private static final class CachedParse {
+        final String source;
+        final String command;
+        final CommandDispatcher<ServerCommandSource> dispatcher;
+        final int generation;
+        final ParseResults<ServerCommandSource> parse;
+
+        CachedParse(String source, String command, CommandDispatcher<ServerCommandSource> dispatcher, int generation, ParseResults<ServerCommandSource> parse) {
+            this.source = source;
+            this.command = command;
+            this.dispatcher = dispatcher;
+            this.generation = generation;
+            this.parse = parse;
+        }
+
+        boolean isValid(String command, CommandDispatcher<ServerCommandSource> currentDispatcher, int currentGeneration) {
+            return generation == currentGeneration && dispatcher == currentDispatcher && source.equals(command);
+        }
+    }
+
+    public static final class EntityTarget implements FanOutTarget {
+        public final Entity entity;
+
+        EntityTarget(Entity entity) {
+            this.entity = entity;
+        }
+
+        @Override
+        public boolean isRemoved() {
+            return entity.isRemoved();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.captainziboo.quartz4mc.manager;
+
+import com.captainziboo.quartz4mc.config.QuartzConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+// Ordered commands of a pipeline cron (CronEntry.steps). A fire is one dispatched unit: steps run back to
+// back on the server thread until one asks for a delay, then the rest of the run is handed back to the
+// dispatcher that many ticks later. Conditional steps only run if the step before them ran and succeeded.
+final class CommandPipeline {
+    private static final Logger LOGGER = LoggerFactory.getLogger("quartz4mc-pipeline");
+
+    final String cronId;
+    private final String[] commands;
+    private final int[] delayTicks;
+    private final boolean[] onlyIfSuccess;
+
+    private CommandPipeline(String cronId, List<QuartzConfig.PipelineStep> steps) {
+        this.cronId = cronId;
+        this.commands = new String[steps.size()];
+        this.delayTicks = new int[steps.size()];
+        this.onlyIfSuccess = new boolean[steps.size()];
+        for (int i = 0; i < commands.length; i++) {
+            QuartzConfig.PipelineStep step = steps.get(i);
+            commands[i] = step.command;
+            delayTicks[i] = Math.max(0, step.delayTicks);
+            onlyIfSuccess[i] = step.onlyIfSuccess;
+        }
+    }
+
+    // Null for single-command crons
+    static CommandPipeline of(QuartzConfig.CronEntry entry) {
+        return entry.isPipeline() ? new CommandPipeline(entry.id, entry.steps) : null;
+    }
+
+    static void validate(QuartzConfig.CronEntry entry) {
+        if (entry.isPipeline() && entry.fanOut != null && !entry.fanOut.isBlank()) {
+            throw new IllegalArgumentException("Pipelines cannot fan out");
+        }
+        if (!entry.isPipeline()) {
+            if (entry.command == null || entry.command.isBlank()) throw new IllegalArgumentException("Command is missing");
+            return;
+        }
+        for (int i = 0; i < entry.steps.size(); i++) {
+            QuartzConfig.PipelineStep step = entry.steps.get(i);
+            if (step == null || step.command == null || step.command.isBlank()) {
+                throw new IllegalArgumentException("Command of step " + (i + 1) + " is missing");
+            }
+        }
+    }
+
+    // Key of a step in CommandParseCache: step 0 shares the cron id with single-command crons
+    static String stepKey(String cronId, int step) {
+        return step == 0 ? cronId : cronId + "#" + step;
+    }
+
+    int size() {
+        return commands.length;
+    }
+
+    String command(int step) {
+        return commands[step];
+    }
+
+    Run newRun(CommandExecutor executor, CronDispatcher dispatcher, CronMetrics metrics, ExecutionHistory history,
+               int priority, CostClass cost, long fireMillis) {
+        return new Run(executor, dispatcher, metrics, history, priority, cost, fireMillis);
+    }
+
+    // One fire of the pipeline. Only touched by the server thread.
+    final class Run implements Runnable {
+        private final CommandExecutor executor;
+        private final CronDispatcher dispatcher;
+        private final CronMetrics metrics;
+        private final ExecutionHistory history;
+        private final int priority;
+        private final CostClass cost;
+        private final long fireMillis;
+        private int next = 0;
+        private boolean waited = false;
+        private boolean previousSucceeded = true;
+        private boolean allSucceeded = true;
+        private int failedSteps = 0;
+        private long startMillis = 0L;
+        private long totalMicros = 0L;
+        private int lastResult = 0;
+
+        private Run(CommandExecutor executor, CronDispatcher dispatcher, CronMetrics metrics, ExecutionHistory history,
+                    int priority, CostClass cost, long fireMillis) {
+            this.executor = executor;
+            this.dispatcher = dispatcher;
+            this.metrics = metrics;
+            this.history = history;
+            this.priority = priority;
+            this.cost = cost;
+            this.fireMillis = fireMillis;
+        }
+
+        @Override
+        public void run() {
+            if (startMillis == 0L) startMillis = dispatcher.getClock().millis();
+            while (next < commands.length) {
+                int step = next;
+                if (delayTicks[step] > 0 && !waited) {
+                    waited = true;
+                    dispatcher.resume(cronId, priority, cost, delayTicks[step], this);
+                    return;
+                }
+                waited = false;
+                next++;
+
+                if (onlyIfSuccess[step] && !previousSucceeded) {
+                    LOGGER.debug("[CommandPipeline] Cron '{}' step {}/{} skipped: previous step did not succeed", cronId, step + 1, commands.length);
+                    continue; // A skipped step does not succeed either
+                }
+
+                long start = dispatcher.getClock().nanos();
+                previousSucceeded = QuartzManager.MinecraftCommandJob.runStep(executor, cronId, stepKey(cronId, step), commands[step]);
+                long micros = (dispatcher.getClock().nanos() - start) / 1_000L;
+                allSucceeded &= previousSucceeded;
+                if (!previousSucceeded) failedSteps++;
+                totalMicros += micros;
+                lastResult = executor.getLastResult();
+                metrics.recordStep(cronId, step, micros);
+                LOGGER.debug("[CommandPipeline] Cron '{}' step {}/{} {} in {} µs", cronId, step + 1, commands.length,
+                        previousSucceeded ? "succeeded" : "failed", micros);
+            }
+            // One breaker result for the whole run, so a later step cannot clear the failure of an earlier one
+            if (allSucceeded) QuartzManager.MinecraftCommandJob.recordSuccess(cronId);
+            else QuartzManager.MinecraftCommandJob.recordFailure(cronId, failedSteps + " of " + commands.length + " step(s) failed");
+            history.record(cronId, fireMillis, startMillis, totalMicros, allSucceeded, lastResult);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.captainziboo.quartz4mc.manager;
+
+import com.captainziboo.quartz4mc.config.QuartzConfig;
+
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.function.Consumer;
+
+// Named limit shared by the crons of a group (CronEntry.group), enforced by CronDispatcher on the
+// server thread: at most maxConcurrent runs in flight (pipelines and fan-outs stay in flight until
+// their last slice) and at least minIntervalTicks between two starts. Fires that would exceed it
+// wait in the group's queue, in dispatch order, instead of running in the same tick.
+public class ConcurrencyGroup {
+    final String name;
+    private final Queue<CronDispatcher.DispatchTask> waiting = new PriorityQueue<>();
+    private final LatencyHistogram wait = new LatencyHistogram();
+    private volatile int maxConcurrent = 1;
+    private volatile int minIntervalTicks = 0;
+    private volatile int inFlight = 0;
+    private volatile long totalQueued = 0L;
+    private long lastStartTick = Long.MIN_VALUE / 2;
+
+    ConcurrencyGroup(String name) {
+        this.name = name;
+    }
+
+    void configure(QuartzConfig.GroupSettings settings) {
+        if (settings == null) settings = new QuartzConfig.GroupSettings();
+        this.maxConcurrent = Math.max(1, settings.maxConcurrent);
+        this.minIntervalTicks = Math.max(0, settings.minIntervalTicks);
+    }
+
+    // Lifts the limits so whatever waits can run (the group was removed from the config)
+    void unlimit() {
+        this.maxConcurrent = Integer.MAX_VALUE;
+        this.minIntervalTicks = 0;
+    }
+
+    private int available(long tick) {
+        if (tick - lastStartTick < minIntervalTicks) return 0;
+        int free = maxConcurrent - inFlight;
+        return minIntervalTicks > 0 ? Math.min(1, free) : free;
+    }
+
+    synchronized boolean tryStart(long tick) {
+        if (available(tick) <= 0) return false;
+        inFlight++;
+        lastStartTick = tick;
+        return true;
+    }
+
+    synchronized void finish() {
+        if (inFlight > 0) inFlight--;
+    }
+
+    synchronized void park(CronDispatcher.DispatchTask task) {
+        if (!task.grouped) {
+            task.grouped = true;
+            totalQueued++;
+        }
+        waiting.add(task);
+    }
+
+    // Hands back as many waiting fires as may start this tick
+    synchronized void release(long tick, Queue<CronDispatcher.DispatchTask> queue) {
+        for (int free = available(tick); free > 0 && !waiting.isEmpty(); free--) queue.add(waiting.poll());
+    }
+
+    void recordWait(long micros) {
+        wait.record(micros);
+    }
+
+    synchronized int drain(Queue<CronDispatcher.DispatchTask> queue) {
+        int drained = waiting.size();
+        queue.addAll(waiting);
+        waiting.clear();
+        return drained;
+    }
+
+    synchronized void clear(Consumer<CronDispatcher.DispatchTask> onDropped) {
+        waiting.forEach(onDropped);
+        waiting.clear();
+        inFlight = 0;
+    }
+
+    synchronized GroupStats getStats() {
+        return new GroupStats(name, waiting.size(), inFlight, maxConcurrent, minIntervalTicks, totalQueued,
+                wait.percentile(50), wait.percentile(99), wait.getMaxMicros());
+    }
+
+    public static class GroupStats {
+        public final String name;
+        public final int queueDepth;
+        public final int inFlight;
+        public final int maxConcurrent;
+        public final int minIntervalTicks;
+        public final long totalQueued;
+        public final long waitP50Micros;
+        public final long waitP99Micros;
+        public final long waitMaxMicros;
+
+        public GroupStats(String name, int queueDepth, int inFlight, int maxConcurrent, int minIntervalTicks, long totalQueued,
+                          long waitP50Micros, long waitP99Micros, long waitMaxMicros) {
+            this.name = name;
+            this.queueDepth = queueDepth;
+            this.inFlight = inFlight;
+            this.maxConcurrent = maxConcurrent;
+            this.minIntervalTicks = minIntervalTicks;
+            this.totalQueued = totalQueued;
+            this.waitP50Micros = waitP50Micros;
+            this.waitP99Micros = waitP99Micros;
+            this.waitMaxMicros = waitMaxMicros;
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.captainziboo.quartz4mc.manager;
+
+// How expensive a cron is for the server thread, which decides how early LoadGovernor holds it back
+public enum CostClass {
+    LIGHT, // Never throttled
+    NORMAL, // Throttled once the server is lagging (critical MSPT)
+    HEAVY; // Throttled as soon as the server is over its MSPT target
+
+    public static CostClass parse(String value) {
+        if (value == null) return NORMAL;
+        switch (value.trim().toLowerCase()) {
+            case "light": return LIGHT;
+            case "heavy": return HEAVY;
+            default: return NORMAL;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.captainziboo.quartz4mc.manager;
+
+// Time source of the scheduling and dispatch code: the system clock on a server, a virtual clock in
+// ScheduleSimulator so that days of schedules can be replayed in seconds.
+public interface CronClock {
+    CronClock SYSTEM = new CronClock() {
+        @Override
+        public long millis() {
+            return System.currentTimeMillis();
+        }
+
+        @Override
+        public long nanos() {
+            return System.nanoTime();
+        }
+    };
+
+    // Wall-clock time, epoch milliseconds
+    long millis();
+
+    // Monotonic time for durations, nanoseconds
+    long nanos();
+}
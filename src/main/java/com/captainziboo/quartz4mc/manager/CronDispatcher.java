@@ -0,0 +1,390 @@
+package com.captainziboo.quartz4mc.manager;
+
+import com.captainziboo.quartz4mc.config.QuartzConfig;
+import net.minecraft.util.profiler.Profiler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Hands cron executions from the Quartz worker threads over to the server thread.
+// Instead of one server.execute() per fire, fires are queued and drained from the tick loop
+// under a per-tick time budget, so crons sharing a schedule are spread over several ticks.
+// While the server is over its MSPT target, LoadGovernor holds low-priority fires back (throttled);
+// fires held too long are shed or run depending on their misfire policy.
+// Crons of a concurrency group only start when the group allows it, otherwise they wait in its queue.
+public class CronDispatcher {
+    private static final Logger LOGGER = LoggerFactory.getLogger("quartz4mc-dispatcher");
+
+    private final PriorityBlockingQueue<DispatchTask> queue = new PriorityBlockingQueue<>();
+    private final TimingWheel<DelayedFire> delayed = new TimingWheel<>(1024, 0L); // Jittered fires, guarded by itself
+    private final AtomicLong sequence = new AtomicLong();
+    private final Set<String> coalescing = ConcurrentHashMap.newKeySet(); // Crons with a pending "coalesce" fire
+    private final Map<String, ConcurrencyGroup> groups = new ConcurrentHashMap<>();
+    private final CronMetrics metrics;
+    private final LoadGovernor governor;
+    private final CronProfiler profiler;
+
+    private volatile CronClock clock = CronClock.SYSTEM;
+    private volatile long tickBudgetNanos = 5_000_000L;
+    private volatile int minExecutionsPerTick = 1;
+    private volatile long currentTick = 0L;
+    private long tickStartNanos; // Server thread only
+    private DispatchTask running; // Server thread only
+    private boolean runningResumed;
+
+    // Stats (written by the server thread only)
+    private volatile int lastTickExecuted;
+    private volatile int lastTickDeferred;
+    private volatile long lastTickNanos;
+    private volatile int lastTickThrottled;
+    private volatile int peakQueueDepth;
+    private final AtomicLong totalExecuted = new AtomicLong();
+    private final AtomicLong totalDeferred = new AtomicLong();
+    private final AtomicLong ticksOverBudget = new AtomicLong();
+    private final AtomicLong totalThrottled = new AtomicLong();
+    private final AtomicLong totalShed = new AtomicLong();
+    private final AtomicLong totalCoalesced = new AtomicLong();
+
+    public CronDispatcher(CronMetrics metrics, LoadGovernor governor) {
+        this(metrics, governor, new CronProfiler());
+    }
+
+    public CronDispatcher(CronMetrics metrics, LoadGovernor governor, CronProfiler profiler) {
+        this.metrics = metrics;
+        this.governor = governor;
+        this.profiler = profiler;
+    }
+
+    public void configure(QuartzConfig.DispatcherSettings settings) {
+        if (settings == null) settings = new QuartzConfig.DispatcherSettings();
+        this.tickBudgetNanos = Math.max(0L, settings.tickBudgetNanos);
+        this.minExecutionsPerTick = Math.max(1, settings.minExecutionsPerTick);
+        LOGGER.debug("[CronDispatcher] Tick budget set to {} ns (min {} execution(s) per tick)", tickBudgetNanos, minExecutionsPerTick);
+    }
+
+    void setClock(CronClock clock) {
+        this.clock = clock;
+    }
+
+    CronClock getClock() {
+        return clock;
+    }
+
+    // Groups kept across reloads keep their in-flight runs and waiting fires
+    public void configureGroups(Map<String, QuartzConfig.GroupSettings> settings) {
+        for (Map.Entry<String, QuartzConfig.GroupSettings> entry : settings.entrySet()) {
+            groups.computeIfAbsent(entry.getKey(), ConcurrencyGroup::new).configure(entry.getValue());
+        }
+        groups.values().removeIf(group -> {
+            if (settings.containsKey(group.name)) return false;
+            group.unlimit(); // Runs still in flight may finish against it
+            int released = group.drain(queue);
+            if (released > 0) LOGGER.debug("[CronDispatcher] Group '{}' removed, {} waiting fire(s) released", group.name, released);
+            return true;
+        });
+    }
+
+    public boolean hasGroup(String name) {
+        return groups.containsKey(name);
+    }
+
+    public boolean hasGroups() {
+        return !groups.isEmpty();
+    }
+
+    // Called from any thread (usually a Quartz worker)
+    public void submit(String cronId, int priority, CostClass cost, MisfirePolicy misfire, long delayTicks, Runnable task) {
+        submit(cronId, priority, cost, misfire, null, delayTicks, task);
+    }
+
+    public void submit(String cronId, int priority, CostClass cost, MisfirePolicy misfire, String group, long delayTicks, Runnable task) {
+        if (misfire == MisfirePolicy.COALESCE && !coalescing.add(cronId)) {
+            // A fire of this cron is still waiting: this one is folded into it
+            totalCoalesced.incrementAndGet();
+            return;
+        }
+        if (delayTicks > 0) {
+            // Queued once the offset has elapsed, so queue wait does not include the jitter
+            synchronized (delayed) {
+                delayed.schedule(delayed.getCurrentTick() + delayTicks,
+                        new DelayedFire(cronId, () -> enqueue(cronId, priority, cost, misfire, groupOf(group), false, task)));
+            }
+            return;
+        }
+        enqueue(cronId, priority, cost, misfire, groupOf(group), false, task);
+    }
+
+    private ConcurrencyGroup groupOf(String name) {
+        return name != null ? groups.get(name) : null;
+    }
+
+    // Rest of a dispatched unit that waits between steps (pipeline delays). It belongs to a fire that
+    // already ran, so it is neither coalesced nor shed, and it keeps its group slot until the unit ends.
+    public void resume(String cronId, int priority, CostClass cost, long delayTicks, Runnable task) {
+        ConcurrencyGroup group = null;
+        if (running != null && running.cronId.equals(cronId)) {
+            group = running.group;
+            runningResumed = true;
+        }
+        ConcurrencyGroup held = group;
+        synchronized (delayed) {
+            delayed.schedule(delayed.getCurrentTick() + Math.max(1L, delayTicks),
+                    new DelayedFire(cronId, () -> enqueue(cronId, priority, cost, MisfirePolicy.FIRE_NOW, held, held != null, task)));
+        }
+    }
+
+    private void enqueue(String cronId, int priority, CostClass cost, MisfirePolicy misfire, ConcurrencyGroup group, boolean holdsSlot, Runnable task) {
+        queue.offer(new DispatchTask(cronId, priority, cost, misfire, group, holdsSlot, sequence.getAndIncrement(), clock.nanos(), currentTick, task));
+    }
+
+    // Called from the server thread once per tick
+    public void tick() {
+        long tick = ++currentTick;
+        synchronized (delayed) {
+            delayed.advanceTo(tick, fire -> fire.enqueue.run());
+        }
+        for (ConcurrencyGroup group : groups.values()) group.release(tick, queue);
+        if (queue.isEmpty()) {
+            lastTickExecuted = 0;
+            lastTickDeferred = 0;
+            lastTickThrottled = 0;
+            lastTickNanos = 0L;
+            return;
+        }
+
+        int depth = queue.size();
+        if (depth > peakQueueDepth) peakQueueDepth = depth;
+
+        long start = clock.nanos();
+        tickStartNanos = start;
+        long budget = tickBudgetNanos;
+        int executed = 0;
+        List<DispatchTask> throttled = null;
+        DispatchTask task;
+        while ((executed < minExecutionsPerTick || clock.nanos() - start < budget)
+                && (task = queue.poll()) != null) {
+            if (governor.shouldDefer(task.cost, task.priority)) {
+                if (tick - task.enqueuedTick < governor.getMaxDeferTicks()) {
+                    if (throttled == null) throttled = new ArrayList<>();
+                    if (!task.throttled) totalThrottled.incrementAndGet();
+                    task.throttled = true;
+                    throttled.add(task);
+                    continue;
+                }
+                if (task.misfire == MisfirePolicy.SKIP) {
+                    shed(task);
+                    continue;
+                }
+                // "fire-now" and "coalesce" fires run once they have waited long enough
+            }
+            if (task.group != null && !task.holdsSlot && !task.group.tryStart(tick)) {
+                task.group.park(task); // Another run of the group is in flight, or one started too recently
+                continue;
+            }
+            run(task);
+            executed++;
+        }
+
+        long elapsed = clock.nanos() - start;
+        int deferred = queue.size();
+        if (deferred > 0) {
+            int newlyDeferred = 0;
+            for (DispatchTask waiting : queue) {
+                // Counted once, however many ticks it keeps waiting. Fires the governor held back are counted as
+                // throttled and coalesced ones never reach the queue, so each counter only sees its own fires.
+                if (waiting.deferred || waiting.throttled) continue;
+                waiting.deferred = true;
+                newlyDeferred++;
+            }
+            totalDeferred.addAndGet(newlyDeferred);
+        }
+        if (throttled != null) queue.addAll(throttled);
+        lastTickExecuted = executed;
+        lastTickDeferred = deferred;
+        lastTickThrottled = throttled != null ? throttled.size() : 0;
+        lastTickNanos = elapsed;
+        totalExecuted.addAndGet(executed);
+
+        if (deferred > 0) {
+            ticksOverBudget.incrementAndGet();
+            LOGGER.debug("[CronDispatcher] Tick budget reached: {} cron(s) executed in {} µs, {} deferred to next tick",
+                    executed, elapsed / 1_000L, deferred);
+        }
+    }
+
+    private void run(DispatchTask task) {
+        if (task.misfire == MisfirePolicy.COALESCE) coalescing.remove(task.cronId);
+        long start = clock.nanos();
+        long queueWaitMicros = (start - task.enqueuedNanos) / 1_000L;
+        metrics.recordQueueWait(task.cronId, queueWaitMicros);
+        if (task.group != null && !task.holdsSlot) task.group.recordWait(queueWaitMicros);
+        running = task;
+        runningResumed = false;
+        CronProfiler.ExecutionEvent event = profiler.beginExecution(task.cronId, queueWaitMicros);
+        Profiler section = profiler.push(task.cronId);
+        try {
+            task.runnable.run();
+        } catch (Exception e) {
+            LOGGER.error("[CronDispatcher] Unhandled error while dispatching cron '{}': {}", task.cronId, e.getMessage(), e);
+        }
+        if (section != null) section.pop();
+        profiler.endExecution(event);
+        if (task.group != null && !runningResumed) task.group.finish(); // Last slice of the unit
+        running = null;
+        metrics.recordExecution(task.cronId, (clock.nanos() - start) / 1_000L);
+    }
+
+    private void shed(DispatchTask task) {
+        if (task.misfire == MisfirePolicy.COALESCE) coalescing.remove(task.cronId);
+        totalShed.incrementAndGet();
+        LOGGER.debug("[CronDispatcher] Shed fire of cron '{}' after {} throttled tick(s)", task.cronId, currentTick - task.enqueuedTick);
+    }
+
+    // Tick budget left for the task being run (server thread, during tick())
+    public long getRemainingTickNanos() {
+        return tickBudgetNanos - (clock.nanos() - tickStartNanos);
+    }
+
+    // Server stop, server thread: runs the queued fires (concurrency group queues included) in priority order,
+    // regardless of the tick budget, the governor and group limits, until none is left or the timeout elapses.
+    // Fires delayed to a later tick (jitter, pipeline waits) are left for clear(). Returns the number of runs.
+    public int drain(long timeoutNanos) {
+        for (ConcurrencyGroup group : groups.values()) group.drain(queue);
+        long start = clock.nanos();
+        tickStartNanos = start;
+        int executed = 0;
+        DispatchTask task;
+        while (clock.nanos() - start < timeoutNanos && (task = queue.poll()) != null) {
+            run(task);
+            executed++;
+        }
+        totalExecuted.addAndGet(executed);
+        return executed;
+    }
+
+    // Drops every pending fire (queued, delayed or waiting in a group). Returns the dropped fires per cron id.
+    public Map<String, Integer> clear() {
+        Map<String, Integer> dropped = new TreeMap<>();
+        DispatchTask task;
+        while ((task = queue.poll()) != null) dropped.merge(task.cronId, 1, Integer::sum);
+        synchronized (delayed) {
+            delayed.clear(fire -> dropped.merge(fire.cronId, 1, Integer::sum));
+        }
+        coalescing.clear();
+        for (ConcurrencyGroup group : groups.values()) group.clear(waiting -> dropped.merge(waiting.cronId, 1, Integer::sum));
+        return dropped;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getDelayedCount() {
+        synchronized (delayed) {
+            return delayed.size();
+        }
+    }
+
+    public List<ConcurrencyGroup.GroupStats> getGroupStats() {
+        List<ConcurrencyGroup.GroupStats> stats = new ArrayList<>();
+        for (ConcurrencyGroup group : groups.values()) stats.add(group.getStats());
+        stats.sort((a, b) -> a.name.compareTo(b.name));
+        return stats;
+    }
+
+    public DispatcherStats getStats() {
+        return new DispatcherStats(queue.size(), peakQueueDepth, lastTickExecuted, lastTickDeferred, lastTickNanos,
+                totalExecuted.get(), totalDeferred.get(), ticksOverBudget.get(), tickBudgetNanos,
+                lastTickThrottled, totalThrottled.get(), totalShed.get(), totalCoalesced.get());
+    }
+
+    // Queued once its tick comes (enqueue), kept with its cron id so clear() can report it
+    private static final class DelayedFire {
+        final String cronId;
+        final Runnable enqueue;
+
+        DelayedFire(String cronId, Runnable enqueue) {
+            this.cronId = cronId;
+            this.enqueue = enqueue;
+        }
+    }
+
+    static final class DispatchTask implements Comparable<DispatchTask> {
+        final String cronId;
+        final int priority;
+        final CostClass cost;
+        final MisfirePolicy misfire;
+        final ConcurrencyGroup group;
+        final boolean holdsSlot; // Continuation of a unit that already started in its group
+        final long sequence;
+        final long enqueuedNanos;
+        final long enqueuedTick;
+        final Runnable runnable;
+        boolean throttled; // Held back by the governor
+        boolean deferred; // Left in the queue by a tick that ran out of budget, never throttled before
+        boolean grouped; // Has waited in its group's queue
+
+        DispatchTask(String cronId, int priority, CostClass cost, MisfirePolicy misfire, ConcurrencyGroup group, boolean holdsSlot,
+                     long sequence, long enqueuedNanos, long enqueuedTick, Runnable runnable) {
+            this.cronId = cronId;
+            this.priority = priority;
+            this.cost = cost;
+            this.misfire = misfire;
+            this.group = group;
+            this.holdsSlot = holdsSlot;
+            this.sequence = sequence;
+            this.enqueuedNanos = enqueuedNanos;
+            this.enqueuedTick = enqueuedTick;
+            this.runnable = runnable;
+        }
+
+        @Override
+        public int compareTo(DispatchTask other) {
+            // Higher priority first, then FIFO
+            if (priority != other.priority) return Integer.compare(other.priority, priority);
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+
+    public static class DispatcherStats {
+        public final int queueDepth;
+        public final int peakQueueDepth;
+        public final int lastTickExecuted;
+        public final int lastTickDeferred;
+        public final long lastTickNanos;
+        public final long totalExecuted;
+        public final long totalDeferred;
+        public final long ticksOverBudget;
+        public final long tickBudgetNanos;
+        public final int lastTickThrottled;
+        public final long totalThrottled;
+        public final long totalShed;
+        public final long totalCoalesced;
+
+        public DispatcherStats(int queueDepth, int peakQueueDepth, int lastTickExecuted, int lastTickDeferred, long lastTickNanos,
+                               long totalExecuted, long totalDeferred, long ticksOverBudget, long tickBudgetNanos,
+                               int lastTickThrottled, long totalThrottled, long totalShed, long totalCoalesced) {
+            this.queueDepth = queueDepth;
+            this.peakQueueDepth = peakQueueDepth;
+            this.lastTickExecuted = lastTickExecuted;
+            this.lastTickDeferred = lastTickDeferred;
+            this.lastTickNanos = lastTickNanos;
+            this.totalExecuted = totalExecuted;
+            this.totalDeferred = totalDeferred;
+            this.ticksOverBudget = ticksOverBudget;
+            this.tickBudgetNanos = tickBudgetNanos;
+            this.lastTickThrottled = lastTickThrottled;
+            this.totalThrottled = totalThrottled;
+            this.totalShed = totalShed;
+            this.totalCoalesced = totalCoalesced;
+        }
+    }
+}
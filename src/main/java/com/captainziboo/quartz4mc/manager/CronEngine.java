@@ -0,0 +1,49 @@
+package com.captainziboo.quartz4mc.manager;
+
+import com.captainziboo.quartz4mc.config.QuartzConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.Map;
+
+// Computes when crons fire. Fires are handed to QuartzManager.fire(), which queues them on the dispatcher.
+interface CronEngine {
+    Logger LOGGER = LoggerFactory.getLogger("quartz4mc-engine");
+
+    String getName();
+
+    boolean start();
+
+    // Stops firing. Fires already being handed over get at most timeoutMillis to finish.
+    void shutdown(long timeoutMillis);
+
+    // Called from the server thread at the start of every tick
+    default void tick() {}
+
+    void schedule(QuartzConfig.CronEntry entry) throws Exception;
+
+    boolean unschedule(String id);
+
+    // Removes then schedules crons in a single operation. Entries that fail are logged and left unscheduled.
+    default void applyBatch(List<String> removedIds, List<QuartzConfig.CronEntry> added) {
+        for (String id : removedIds) unschedule(id);
+        for (QuartzConfig.CronEntry entry : added) {
+            try {
+                schedule(entry);
+            } catch (Exception e) {
+                LOGGER.error("[CronEngine] Failed to start cron '{}' during load: {}", entry.id, e.getMessage(), e);
+            }
+        }
+    }
+
+    boolean isScheduled(String id);
+
+    int getScheduledCount();
+
+    // Next fire time of a scheduled cron (epoch millis, before any offset), or -1 if unknown
+    long getNextFireMillis(String id);
+
+    // id -> engine specific key
+    Map<String, String> describe();
+}
@@ -0,0 +1,82 @@
+package com.captainziboo.quartz4mc.manager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Event crons are never handed to an engine: they are kept here and fired when the matching
+// Fabric event happens, replacing crons that poll every second for something to change.
+class CronEvents {
+    private final Map<String, EventTrigger> triggers = new ConcurrentHashMap<>(); // cron id -> event
+    private volatile int playerCount = 0; // Tracked from join/leave events (server thread only)
+
+    void register(String id, EventTrigger trigger) {
+        triggers.put(id, trigger);
+    }
+
+    boolean unregister(String id) {
+        return triggers.remove(id) != null;
+    }
+
+    boolean contains(String id) {
+        return triggers.containsKey(id);
+    }
+
+    int size() {
+        return triggers.size();
+    }
+
+    void clear() {
+        triggers.clear();
+    }
+
+    // Ids of the crons to fire for each event
+    List<String> onServerStarted(int players) {
+        playerCount = players;
+        return matching(EventTrigger.Kind.SERVER_STARTED);
+    }
+
+    List<String> onPlayerJoin() {
+        int before = playerCount;
+        playerCount = before + 1;
+        List<String> fired = matching(EventTrigger.Kind.PLAYER_JOIN);
+        crossed(before, before + 1, fired);
+        return fired;
+    }
+
+    List<String> onPlayerLeave() {
+        int before = playerCount;
+        int after = Math.max(0, before - 1);
+        playerCount = after;
+        List<String> fired = matching(EventTrigger.Kind.PLAYER_LEAVE);
+        crossed(before, after, fired);
+        return fired;
+    }
+
+    int getPlayerCount() {
+        return playerCount;
+    }
+
+    private List<String> matching(EventTrigger.Kind kind) {
+        List<String> ids = new ArrayList<>();
+        triggers.forEach((id, trigger) -> {
+            if (trigger.kind == kind) ids.add(id);
+        });
+        return ids;
+    }
+
+    private void crossed(int before, int after, List<String> fired) {
+        triggers.forEach((id, trigger) -> {
+            if (trigger.crossed(before, after)) fired.add(id);
+        });
+    }
+
+    // id -> event, for the status listing
+    Map<String, String> describe() {
+        Map<String, String> events = new HashMap<>();
+        triggers.forEach((id, trigger) -> events.put(id, "@on " + trigger));
+        return events;
+    }
+}
@@ -0,0 +1,104 @@
+package com.captainziboo.quartz4mc.manager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Per-cron latency histograms:
+//  - fire lag: scheduled fire time -> engine hands the fire to the dispatcher
+//  - queue wait: dispatcher submission -> server thread picks it up
+//  - execution: time spent running the command on the server thread
+//  - steps: execution time of each step of a pipeline cron
+public class CronMetrics {
+    private final Map<String, CronStats> stats = new ConcurrentHashMap<>();
+    private final CronStats total = new CronStats();
+    private volatile boolean enabled = true;
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void recordFireLag(String cronId, long micros) {
+        if (!enabled) return;
+        statsFor(cronId).fireLag.record(micros);
+        total.fireLag.record(micros);
+    }
+
+    public void recordQueueWait(String cronId, long micros) {
+        if (!enabled) return;
+        statsFor(cronId).queueWait.record(micros);
+        total.queueWait.record(micros);
+    }
+
+    public void recordExecution(String cronId, long micros) {
+        if (!enabled) return;
+        statsFor(cronId).execution.record(micros);
+        total.execution.record(micros);
+    }
+
+    public void recordStep(String cronId, int step, long micros) {
+        if (!enabled) return;
+        statsFor(cronId).step(step).record(micros);
+    }
+
+    private CronStats statsFor(String cronId) {
+        CronStats cron = stats.get(cronId);
+        return cron != null ? cron : stats.computeIfAbsent(cronId, id -> new CronStats());
+    }
+
+    public CronStats get(String cronId) {
+        return stats.get(cronId);
+    }
+
+    public CronStats getTotal() {
+        return total;
+    }
+
+    public Map<String, CronStats> getAll() {
+        return stats;
+    }
+
+    public void remove(String cronId) {
+        stats.remove(cronId);
+    }
+
+    // Crons that spent the most time on the server thread
+    public List<Map.Entry<String, CronStats>> topByExecutionTime(int limit) {
+        List<Map.Entry<String, CronStats>> entries = new ArrayList<>(stats.entrySet());
+        entries.sort(Comparator.comparingLong((Map.Entry<String, CronStats> e) -> e.getValue().execution.getSumMicros()).reversed());
+        return entries.subList(0, Math.min(limit, entries.size()));
+    }
+
+    public static class CronStats {
+        public final LatencyHistogram fireLag = new LatencyHistogram();
+        public final LatencyHistogram queueWait = new LatencyHistogram();
+        public final LatencyHistogram execution = new LatencyHistogram();
+        private volatile LatencyHistogram[] steps = new LatencyHistogram[0];
+
+        LatencyHistogram step(int step) {
+            LatencyHistogram[] current = steps;
+            if (step < current.length) return current[step];
+            synchronized (this) {
+                current = steps;
+                if (step >= current.length) {
+                    LatencyHistogram[] grown = Arrays.copyOf(current, step + 1);
+                    for (int i = current.length; i < grown.length; i++) grown[i] = new LatencyHistogram();
+                    steps = current = grown;
+                }
+                return current[step];
+            }
+        }
+
+        // Pipeline crons only, indexed by step
+        public LatencyHistogram[] getSteps() {
+            return steps;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.captainziboo.quartz4mc.manager;
+
+import com.captainziboo.quartz4mc.config.QuartzConfig;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+import jdk.jfr.Timestamp;
+import net.minecraft.util.profiler.Profiler;
+
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// Makes cron work attributable in profilers: JFR events for every fire and every server thread run,
+// and vanilla profiler sections named after the cron (/debug, /perf). Both are off by default; while
+// off, a run only reads two flags and allocates nothing.
+public class CronProfiler {
+    private static final String SECTION_PREFIX = "quartz4mc:";
+
+    private volatile boolean jfrEvents = false;
+    private volatile boolean profilerSections = false;
+    private volatile Supplier<Profiler> profiler = () -> null;
+    private volatile Function<String, String> uuids = id -> null;
+
+    public void configure(QuartzConfig.ProfilingSettings settings) {
+        if (settings == null) settings = new QuartzConfig.ProfilingSettings();
+        this.jfrEvents = settings.jfrEvents;
+        this.profilerSections = settings.profilerSections;
+    }
+
+    void setProfiler(Supplier<Profiler> profiler) {
+        this.profiler = profiler;
+    }
+
+    void setUuidResolver(Function<String, String> uuids) {
+        this.uuids = uuids;
+    }
+
+    // A fire reached the manager (any thread). dropped: rejected by the cron's circuit breaker.
+    void onFire(String cronId, long scheduledFireMillis, boolean dropped) {
+        if (!jfrEvents) return;
+        FireEvent event = new FireEvent();
+        if (!event.shouldCommit()) return;
+        long now = System.currentTimeMillis();
+        event.cronId = cronId;
+        event.uuid = uuids.apply(cronId);
+        event.scheduledTime = scheduledFireMillis > 0L ? scheduledFireMillis : now;
+        event.fireLag = scheduledFireMillis > 0L ? Math.max(0L, now - scheduledFireMillis) : 0L;
+        event.dropped = dropped;
+        event.commit();
+    }
+
+    // Server thread, before a dispatched run. Null when JFR events are off or not recorded.
+    ExecutionEvent beginExecution(String cronId, long queueWaitMicros) {
+        if (!jfrEvents) return null;
+        ExecutionEvent event = new ExecutionEvent();
+        if (!event.isEnabled()) return null;
+        event.cronId = cronId;
+        event.queueWait = queueWaitMicros;
+        event.begin();
+        return event;
+    }
+
+    void endExecution(ExecutionEvent event) {
+        if (event == null) return;
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.uuid = uuids.apply(event.cronId);
+        event.commit();
+    }
+
+    // Server thread, before a dispatched run. Returns the profiler to pop afterwards, or null.
+    Profiler push(String cronId) {
+        if (!profilerSections) return null;
+        Profiler current = profiler.get();
+        if (current != null) current.push(SECTION_PREFIX + cronId);
+        return current;
+    }
+
+    public boolean isEnabled() {
+        return jfrEvents || profilerSections;
+    }
+
+    @Name("quartz4mc.CronFire")
+    @Label("Cron Fire")
+    @Category("Quartz4MC")
+    @Description("A cron fire handed over to the dispatcher")
+    @StackTrace(false)
+    static class FireEvent extends Event {
+        @Label("Cron ID")
+        String cronId;
+
+        @Label("UUID")
+        String uuid;
+
+        @Label("Scheduled Time")
+        @Timestamp(Timestamp.MILLISECONDS_SINCE_EPOCH)
+        long scheduledTime;
+
+        @Label("Fire Lag")
+        @Timespan(Timespan.MILLISECONDS)
+        long fireLag;
+
+        @Label("Dropped")
+        @Description("Rejected by the cron's open circuit breaker")
+        boolean dropped;
+    }
+
+    @Name("quartz4mc.CronExecution")
+    @Label("Cron Execution")
+    @Category("Quartz4MC")
+    @Description("One dispatched run on the server thread (a whole cron, a pipeline step or a fan-out slice)")
+    @StackTrace(false)
+    static class ExecutionEvent extends Event {
+        @Label("Cron ID")
+        String cronId;
+
+        @Label("UUID")
+        String uuid;
+
+        @Label("Queue Wait")
+        @Timespan(Timespan.MICROSECONDS)
+        long queueWait;
+    }
+}
@@ -0,0 +1,66 @@
+package com.captainziboo.quartz4mc.manager;
+
+import java.text.ParseException;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Event schedules ("@on <event>"), fired from Fabric events instead of a clock:
+//  - "@on server-started"
+//  - "@on player-join", "@on player-leave"
+//  - "@on players >= 5": the online player count crosses the threshold (also >, <, <=)
+public final class EventTrigger {
+    public enum Kind { SERVER_STARTED, PLAYER_JOIN, PLAYER_LEAVE, PLAYER_COUNT }
+
+    private static final Pattern PLAYER_COUNT = Pattern.compile("^players\\s*(>=|<=|>|<)\\s*(\\d+)$", Pattern.CASE_INSENSITIVE);
+
+    public final Kind kind;
+    private final String comparison; // PLAYER_COUNT only
+    private final int threshold;
+
+    private EventTrigger(Kind kind, String comparison, int threshold) {
+        this.kind = kind;
+        this.comparison = comparison;
+        this.threshold = threshold;
+    }
+
+    public static EventTrigger parse(String schedule) throws ParseException {
+        if (!Schedules.isEvent(schedule)) throw new ParseException("Expected '@on <event>'", 0);
+        String event = schedule.trim().substring(3).trim();
+        switch (event.toLowerCase(Locale.ROOT)) {
+            case "server-started": return new EventTrigger(Kind.SERVER_STARTED, null, 0);
+            case "player-join": return new EventTrigger(Kind.PLAYER_JOIN, null, 0);
+            case "player-leave": return new EventTrigger(Kind.PLAYER_LEAVE, null, 0);
+            default: break;
+        }
+
+        Matcher matcher = PLAYER_COUNT.matcher(event);
+        if (!matcher.matches()) {
+            throw new ParseException("Unknown event '" + event + "' (server-started, player-join, player-leave or players >= N)", 0);
+        }
+        try {
+            return new EventTrigger(Kind.PLAYER_COUNT, matcher.group(1), Integer.parseInt(matcher.group(2)));
+        } catch (NumberFormatException e) {
+            throw new ParseException("Player count out of range", 0);
+        }
+    }
+
+    // Player count thresholds fire on the transition only, not while the condition holds
+    boolean crossed(int before, int after) {
+        return kind == Kind.PLAYER_COUNT && !matches(before) && matches(after);
+    }
+
+    private boolean matches(int players) {
+        switch (comparison) {
+            case ">=": return players >= threshold;
+            case ">": return players > threshold;
+            case "<=": return players <= threshold;
+            default: return players < threshold;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return kind == Kind.PLAYER_COUNT ? "players " + comparison + " " + threshold : kind.name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+}
@@ -0,0 +1,173 @@
+package com.captainziboo.quartz4mc.manager;
+
+import com.captainziboo.quartz4mc.config.QuartzConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Last executions of all crons in one preallocated ring buffer of primitive columns: recording an
+// execution only writes array slots (the cron id is a reference to the live cron's string), so the
+// dispatch path does not allocate. Queried per cron by scanning backwards from the newest record.
+public class ExecutionHistory {
+    private static final Logger LOGGER = LoggerFactory.getLogger("quartz4mc-history");
+    private static final int BINARY_MAGIC = 0x51344D48; // "Q4MH"
+    private static final short BINARY_VERSION = 1;
+
+    private String[] cronIds = new String[0];
+    private long[] fireMillis = new long[0];
+    private long[] startMillis = new long[0];
+    private int[] durationMicros = new int[0];
+    private int[] results = new int[0];
+    private boolean[] successes = new boolean[0];
+    private long written = 0L; // Total records ever written, the next slot is written % capacity
+
+    public synchronized void configure(QuartzConfig.HistorySettings settings) {
+        if (settings == null) settings = new QuartzConfig.HistorySettings();
+        int capacity = Math.max(0, settings.capacity);
+        if (capacity == cronIds.length) return;
+        cronIds = new String[capacity];
+        fireMillis = new long[capacity];
+        startMillis = new long[capacity];
+        durationMicros = new int[capacity];
+        results = new int[capacity];
+        successes = new boolean[capacity];
+        written = 0L;
+        LOGGER.debug("[ExecutionHistory] Keeping the last {} execution(s)", capacity);
+    }
+
+    // Called from the server thread once a dispatched run is over
+    public synchronized void record(String cronId, long fireMillis, long startMillis, long durationMicros, boolean success, int result) {
+        int capacity = cronIds.length;
+        if (capacity == 0) return;
+        int slot = (int) (written++ % capacity);
+        this.cronIds[slot] = cronId;
+        this.fireMillis[slot] = fireMillis;
+        this.startMillis[slot] = startMillis;
+        this.durationMicros[slot] = (int) Math.min(Integer.MAX_VALUE, durationMicros);
+        this.successes[slot] = success;
+        this.results[slot] = result;
+    }
+
+    // Newest first
+    public synchronized List<Execution> latest(String cronId, int limit) {
+        List<Execution> executions = new ArrayList<>();
+        int capacity = cronIds.length;
+        long oldest = Math.max(0L, written - capacity);
+        for (long i = written - 1; i >= oldest && executions.size() < limit; i--) {
+            int slot = (int) (i % capacity);
+            if (cronId.equals(cronIds[slot])) executions.add(read(slot));
+        }
+        return executions;
+    }
+
+    public synchronized int size() {
+        return (int) Math.min(written, cronIds.length);
+    }
+
+    public synchronized void clear() {
+        written = 0L;
+        Arrays.fill(cronIds, null);
+    }
+
+    // Oldest first
+    private synchronized List<Execution> snapshot() {
+        List<Execution> executions = new ArrayList<>(size());
+        int capacity = cronIds.length;
+        for (long i = Math.max(0L, written - capacity); i < written; i++) executions.add(read((int) (i % capacity)));
+        return executions;
+    }
+
+    private Execution read(int slot) {
+        return new Execution(cronIds[slot], fireMillis[slot], startMillis[slot], durationMicros[slot], successes[slot], results[slot]);
+    }
+
+    // Writes the history to "<basePath>.csv" or "<basePath>.bin". The buffer is copied first, so this can
+    // run off the server thread. Returns the file written.
+    public Path dump(String basePath, boolean binary) throws IOException {
+        List<Execution> executions = snapshot();
+        Path target = Path.of(basePath + (binary ? ".bin" : ".csv"));
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        if (target.getParent() != null) Files.createDirectories(target.getParent());
+
+        if (binary) {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                writeBinary(out, executions);
+            }
+        } else {
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writer.write("cron,fire_millis,start_millis,duration_micros,success,result\n");
+                for (Execution execution : executions) {
+                    writer.write(csv(execution.cronId) + ',' + execution.fireMillis + ',' + execution.startMillis + ','
+                            + execution.durationMicros + ',' + execution.success + ',' + execution.result + '\n');
+                }
+            }
+        }
+
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        LOGGER.debug("[ExecutionHistory] Wrote {} execution(s) to {}", executions.size(), target);
+        return target;
+    }
+
+    // Header, cron id table, then fixed-size records referencing the table
+    private static void writeBinary(DataOutputStream out, List<Execution> executions) throws IOException {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> table = new ArrayList<>();
+        for (Execution execution : executions) {
+            if (ids.putIfAbsent(execution.cronId, table.size()) == null) table.add(execution.cronId);
+        }
+        out.writeInt(BINARY_MAGIC);
+        out.writeShort(BINARY_VERSION);
+        out.writeInt(table.size());
+        for (String id : table) out.writeUTF(id);
+        out.writeInt(executions.size());
+        for (Execution execution : executions) {
+            out.writeInt(ids.get(execution.cronId));
+            out.writeLong(execution.fireMillis);
+            out.writeLong(execution.startMillis);
+            out.writeInt(execution.durationMicros);
+            out.writeBoolean(execution.success);
+            out.writeInt(execution.result);
+        }
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    public static class Execution {
+        public final String cronId;
+        public final long fireMillis; // Scheduled fire time
+        public final long startMillis; // When the server thread started running it
+        public final int durationMicros;
+        public final boolean success;
+        public final int result; // Command return value (last step for pipelines, last target for fan-outs)
+
+        public Execution(String cronId, long fireMillis, long startMillis, int durationMicros, boolean success, int result) {
+            this.cronId = cronId;
+            this.fireMillis = fireMillis;
+            this.startMillis = startMillis;
+            this.durationMicros = durationMicros;
+            this.success = success;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.captainziboo.quartz4mc.manager;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+// One fire of a fan-out cron: the target selector is resolved once, then the command is run as each
+// target in slices over successive ticks instead of "execute as @a run ..." in a single call.
+// A slice is either a fixed number of targets or, with fanOutSlice = 0, whatever fits in what is left
+// of the dispatcher's tick budget. The whole fan-out counts as one run for failure counting.
+final class FanOutRun implements Runnable {
+    private static final Logger LOGGER = LoggerFactory.getLogger("quartz4mc-fan-out");
+
+    private final String cronId;
+    private final String command;
+    private final String selector;
+    private final int sliceSize;
+    private final CommandExecutor executor;
+    private final CronDispatcher dispatcher;
+    private final ExecutionHistory history;
+    private final int priority;
+    private final CostClass cost;
+    private final long fireMillis;
+
+    // Only touched by the server thread
+    private List<? extends FanOutTarget> targets;
+    private int next = 0;
+    private int slices = 0;
+    private int failed = 0;
+    private int succeeded = 0;
+    private int lastResult = 0; // Return value of the command for the last target, as recorded in the history
+    private Exception lastFailure;
+    private long startMillis = 0L;
+    private long totalMicros = 0L;
+
+    FanOutRun(String cronId, String command, String selector, int sliceSize, CommandExecutor executor,
+              CronDispatcher dispatcher, ExecutionHistory history, int priority, CostClass cost, long fireMillis) {
+        this.cronId = cronId;
+        this.command = command;
+        this.selector = selector;
+        this.sliceSize = Math.max(0, sliceSize);
+        this.executor = executor;
+        this.dispatcher = dispatcher;
+        this.history = history;
+        this.priority = priority;
+        this.cost = cost;
+        this.fireMillis = fireMillis;
+    }
+
+    @Override
+    public void run() {
+        long start = dispatcher.getClock().nanos();
+        if (targets == null) {
+            startMillis = dispatcher.getClock().millis();
+            try {
+                targets = executor.resolveTargets(selector);
+            } catch (Exception e) {
+                QuartzManager.MinecraftCommandJob.recordFailure(cronId, e);
+                history.record(cronId, fireMillis, startMillis, (dispatcher.getClock().nanos() - start) / 1_000L, false, 0);
+                return;
+            }
+        }
+
+        slices++;
+        int ran = 0;
+        while (next < targets.size() && (sliceSize > 0 ? ran < sliceSize : ran == 0 || dispatcher.getRemainingTickNanos() > 0)) {
+            FanOutTarget target = targets.get(next++);
+            if (target.isRemoved()) continue; // Left or despawned since the fan-out started
+            ran++;
+            try {
+                if (executor.executeAs(cronId, command, target)) succeeded++;
+                else failed++;
+                lastResult = executor.getLastResult();
+            } catch (Exception e) {
+                failed++;
+                lastFailure = e;
+            }
+        }
+
+        totalMicros += (dispatcher.getClock().nanos() - start) / 1_000L;
+        if (next < targets.size()) {
+            dispatcher.resume(cronId, priority, cost, 1L, this);
+            return;
+        }
+
+        LOGGER.debug("[FanOutRun] Cron '{}' ran for {} target(s) over {} tick(s), {} failed", cronId, targets.size(), slices, failed);
+        if (failed == 0) QuartzManager.MinecraftCommandJob.recordSuccess(cronId);
+        else if (lastFailure != null) QuartzManager.MinecraftCommandJob.recordFailure(cronId, lastFailure);
+        else QuartzManager.MinecraftCommandJob.recordFailure(cronId, failed + " of " + (failed + succeeded) + " target(s) reported failure");
+        history.record(cronId, fireMillis, startMillis, totalMicros, failed == 0, lastResult);
+    }
+}
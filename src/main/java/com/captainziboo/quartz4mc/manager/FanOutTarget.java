@@ -0,0 +1,7 @@
+package com.captainziboo.quartz4mc.manager;
+
+// One target of a fan-out fire, as resolved by the CommandExecutor (an entity on a real server)
+public interface FanOutTarget {
+    // Left or despawned since the fan-out started: skipped
+    boolean isRemoved();
+}
@@ -0,0 +1,126 @@
+package com.captainziboo.quartz4mc.manager;
+
+import org.quartz.CronExpression;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.PriorityQueue;
+
+// Upcoming fires across all scheduled crons: one cursor per cron (its next fire time) in a priority
+// queue, so the next N fires are produced in order without expanding every schedule up front.
+public class FireForecast {
+    static final int HEATMAP_SECONDS = 3600;
+    private static final int MAX_HEATMAP_FIRES = 1_000_000; // Stops runaway expansion of sub-second intervals
+
+    private final PriorityQueue<Cursor> cursors = new PriorityQueue<>();
+    private final long fromMillis;
+    private final int[] seconds = new int[HEATMAP_SECONDS]; // Heatmap of the fires consumed so far
+    private int heatmapFires = 0;
+
+    FireForecast(long fromMillis) {
+        this.fromMillis = fromMillis;
+    }
+
+    // firstFireMillis is the engine's next fire time (-1 to compute it from the schedule)
+    void add(String cronId, String schedule, long firstFireMillis, long offsetMillis) {
+        try {
+            Cursor cursor = new Cursor(cronId, offsetMillis);
+            if (Schedules.isTickInterval(schedule)) {
+                cursor.intervalMillis = Schedules.parseTickInterval(schedule) * Schedules.MILLIS_PER_TICK;
+                cursor.nextMillis = firstFireMillis >= 0 ? firstFireMillis : fromMillis + cursor.intervalMillis;
+            } else {
+                cursor.expression = Schedules.compile(schedule);
+                if (firstFireMillis >= 0) {
+                    cursor.nextMillis = firstFireMillis;
+                } else {
+                    Date next = cursor.expression.getNextValidTimeAfter(new Date(fromMillis));
+                    if (next == null) return;
+                    cursor.nextMillis = next.getTime();
+                }
+            }
+            cursors.add(cursor);
+        } catch (Exception e) {
+            // Invalid schedules are never scheduled: nothing to forecast
+        }
+    }
+
+    // Next fires in order, at most limit of them and none after untilMillis. Consumes the forecast.
+    public List<UpcomingFire> next(int limit, long untilMillis) {
+        List<UpcomingFire> fires = new ArrayList<>();
+        Cursor cursor;
+        while (fires.size() < limit && (cursor = cursors.peek()) != null && cursor.fireMillis() <= untilMillis) {
+            fires.add(new UpcomingFire(cursor.cronId, cursor.fireMillis()));
+            advance();
+        }
+        return fires;
+    }
+
+    // Fires per second over the next hour (index 0 = the second starting at fromMillis), fires already
+    // returned by next() included. Consumes the rest of that hour.
+    public int[] heatmap() {
+        long end = fromMillis + HEATMAP_SECONDS * 1_000L;
+        Cursor cursor;
+        while ((cursor = cursors.peek()) != null && cursor.fireMillis() < end && heatmapFires < MAX_HEATMAP_FIRES) advance();
+        return seconds;
+    }
+
+    // Consumes the earliest fire, counting it in the heatmap when it falls within the hour
+    private void advance() {
+        Cursor cursor = cursors.poll();
+        long second = (cursor.fireMillis() - fromMillis) / 1_000L;
+        if (second >= 0 && second < HEATMAP_SECONDS) {
+            seconds[(int) second]++;
+            heatmapFires++;
+        }
+        if (cursor.advance()) cursors.add(cursor);
+    }
+
+    public boolean isEmpty() {
+        return cursors.isEmpty();
+    }
+
+    private static final class Cursor implements Comparable<Cursor> {
+        final String cronId;
+        final long offsetMillis;
+        CronExpression expression;
+        long intervalMillis;
+        long nextMillis; // Without offset
+
+        Cursor(String cronId, long offsetMillis) {
+            this.cronId = cronId;
+            this.offsetMillis = offsetMillis;
+        }
+
+        long fireMillis() {
+            return nextMillis + offsetMillis;
+        }
+
+        boolean advance() {
+            if (expression == null) {
+                nextMillis += intervalMillis;
+                return true;
+            }
+            Date next = expression.getNextValidTimeAfter(new Date(nextMillis));
+            if (next == null) return false;
+            nextMillis = next.getTime();
+            return true;
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            int byTime = Long.compare(fireMillis(), other.fireMillis());
+            return byTime != 0 ? byTime : cronId.compareTo(other.cronId);
+        }
+    }
+
+    public static class UpcomingFire {
+        public final String cronId;
+        public final long fireMillis;
+
+        public UpcomingFire(String cronId, long fireMillis) {
+            this.cronId = cronId;
+            this.fireMillis = fireMillis;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.captainziboo.quartz4mc.manager;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Fixed-size log-linear histogram of durations in microseconds: two buckets per power of two, so
+// percentiles are accurate to ~25%. Recording is lock-free and allocation-free.
+public class LatencyHistogram {
+    private static final int BUCKETS = 56; // up to ~2^26 µs (67 s), larger values land in the last bucket
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long micros) {
+        if (micros < 0) micros = 0;
+        counts.incrementAndGet(bucketOf(micros));
+        count.incrementAndGet();
+        sum.addAndGet(micros);
+        long currentMax;
+        while (micros > (currentMax = max.get()) && !max.compareAndSet(currentMax, micros)) {
+            // retry
+        }
+    }
+
+    static int bucketOf(long micros) {
+        if (micros < 1) return 0;
+        int msb = 63 - Long.numberOfLeadingZeros(micros);
+        int half = msb > 0 ? (int) ((micros >>> (msb - 1)) & 1L) : 0;
+        return Math.min(BUCKETS - 1, 1 + (msb << 1) + half);
+    }
+
+    // Exclusive upper bound of a bucket, in microseconds
+    static long upperBoundOf(int bucket) {
+        if (bucket == 0) return 1L;
+        int msb = (bucket - 1) >> 1;
+        int half = (bucket - 1) & 1;
+        if (msb == 0) return 2L;
+        long step = 1L << (msb - 1);
+        return (1L << msb) + (half + 1) * step;
+    }
+
+    // Approximate percentile (0-100), in microseconds
+    public long percentile(double percentile) {
+        long total = count.get();
+        if (total == 0) return 0L;
+        long rank = (long) Math.ceil(total * Math.min(100.0, Math.max(0.0, percentile)) / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return i == BUCKETS - 1 ? max.get() : Math.min(upperBoundOf(i), max.get());
+        }
+        return max.get();
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getSumMicros() {
+        return sum.get();
+    }
+
+    public long getMaxMicros() {
+        return max.get();
+    }
+
+    public long getMeanMicros() {
+        long total = count.get();
+        return total == 0 ? 0L : sum.get() / total;
+    }
+}
@@ -0,0 +1,90 @@
+package com.captainziboo.quartz4mc.manager;
+
+import com.captainziboo.quartz4mc.config.QuartzConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// Measures MSPT from the server tick loop (start -> end of each tick, averaged over the last few
+// ticks) and tells the dispatcher which fires to hold back while the server is over budget:
+// heavy crons above the MSPT target, normal crons above the critical MSPT, light crons never.
+public class LoadGovernor {
+    private static final Logger LOGGER = LoggerFactory.getLogger("quartz4mc-governor");
+
+    private volatile CronClock clock = CronClock.SYSTEM;
+    private volatile boolean enabled = true;
+    private volatile double msptTarget = 40.0;
+    private volatile double msptCritical = 50.0;
+    private volatile int protectedPriority = 10;
+    private volatile int maxDeferTicks = 200;
+
+    // Written by the server thread only
+    private long[] samples = new long[20];
+    private int sampleIndex = 0;
+    private int sampleCount = 0;
+    private long sampleSum = 0L;
+    private long tickStartNanos = 0L;
+    private volatile double recentMspt = 0.0;
+
+    public synchronized void configure(QuartzConfig.GovernorSettings settings) {
+        if (settings == null) settings = new QuartzConfig.GovernorSettings();
+        this.enabled = settings.enabled;
+        this.msptTarget = settings.msptTarget;
+        this.msptCritical = Math.max(settings.msptTarget, settings.msptCritical);
+        this.protectedPriority = settings.protectedPriority;
+        this.maxDeferTicks = Math.max(0, settings.maxDeferTicks);
+        int size = Math.max(1, settings.sampleTicks);
+        if (size != samples.length) {
+            samples = new long[size];
+            sampleIndex = 0;
+            sampleCount = 0;
+            sampleSum = 0L;
+        }
+        LOGGER.debug("[LoadGovernor] {} (target {} mspt, critical {} mspt)", enabled ? "Enabled" : "Disabled", msptTarget, msptCritical);
+    }
+
+    void setClock(CronClock clock) {
+        this.clock = clock;
+    }
+
+    // Called from the server thread at the start and end of every tick
+    public void onTickStart() {
+        tickStartNanos = clock.nanos();
+    }
+
+    public synchronized void onTickEnd() {
+        if (tickStartNanos == 0L) return;
+        long elapsed = clock.nanos() - tickStartNanos;
+        sampleSum += elapsed - samples[sampleIndex];
+        samples[sampleIndex] = elapsed;
+        sampleIndex = (sampleIndex + 1) % samples.length;
+        if (sampleCount < samples.length) sampleCount++;
+        recentMspt = sampleSum / (double) sampleCount / 1_000_000.0;
+    }
+
+    // Whether a fire should be held back this tick
+    public boolean shouldDefer(CostClass cost, int priority) {
+        if (!enabled || cost == CostClass.LIGHT || priority >= protectedPriority) return false;
+        double mspt = recentMspt;
+        return cost == CostClass.HEAVY ? mspt > msptTarget : mspt > msptCritical;
+    }
+
+    public boolean isOverloaded() {
+        return enabled && recentMspt > msptTarget;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public double getRecentMspt() {
+        return recentMspt;
+    }
+
+    public double getMsptTarget() {
+        return msptTarget;
+    }
+
+    public int getMaxDeferTicks() {
+        return maxDeferTicks;
+    }
+}
@@ -0,0 +1,184 @@
+package com.captainziboo.quartz4mc.manager;
+
+import com.captainziboo.quartz4mc.config.QuartzConfig;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Exposes CronMetrics in the Prometheus text format, as a periodically rewritten file
+// and/or on http://127.0.0.1:<port>/metrics
+class MetricsExporter {
+    private static final Logger LOGGER = LoggerFactory.getLogger("quartz4mc-metrics");
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    private final CronMetrics metrics;
+    private final CronDispatcher dispatcher;
+    private ScheduledExecutorService fileWriter;
+    private HttpServer httpServer;
+
+    MetricsExporter(CronMetrics metrics, CronDispatcher dispatcher) {
+        this.metrics = metrics;
+        this.dispatcher = dispatcher;
+    }
+
+    synchronized void configure(QuartzConfig.MetricsSettings settings) {
+        stop();
+        if (settings == null) settings = new QuartzConfig.MetricsSettings();
+        metrics.setEnabled(settings.enabled);
+        if (!settings.enabled) return;
+
+        if (settings.prometheusFile != null && !settings.prometheusFile.isBlank()) {
+            Path target = Paths.get(settings.prometheusFile);
+            long interval = Math.max(1, settings.exportIntervalSeconds);
+            fileWriter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "quartz4mc-metrics-writer");
+                thread.setDaemon(true);
+                return thread;
+            });
+            fileWriter.scheduleWithFixedDelay(() -> writeFile(target), interval, interval, TimeUnit.SECONDS);
+            LOGGER.debug("[MetricsExporter] Writing metrics to {} every {} s", target, interval);
+        }
+
+        if (settings.httpPort > 0) {
+            try {
+                httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), settings.httpPort), 0);
+                httpServer.createContext("/metrics", exchange -> {
+                    byte[] body = render().getBytes(StandardCharsets.UTF_8);
+                    exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+                    exchange.sendResponseHeaders(200, body.length);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(body);
+                    }
+                });
+                httpServer.start();
+                LOGGER.debug("[MetricsExporter] Serving metrics on http://127.0.0.1:{}/metrics", settings.httpPort);
+            } catch (IOException e) {
+                httpServer = null;
+                LOGGER.error("[MetricsExporter] Failed to start metrics endpoint on port {}: {}", settings.httpPort, e.getMessage(), e);
+            }
+        }
+    }
+
+    synchronized void stop() {
+        if (fileWriter != null) {
+            fileWriter.shutdownNow();
+            fileWriter = null;
+        }
+        if (httpServer != null) {
+            httpServer.stop(0);
+            httpServer = null;
+        }
+    }
+
+    private void writeFile(Path target) {
+        try {
+            Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+            if (target.getParent() != null) Files.createDirectories(target.getParent());
+            Files.writeString(temp, render(), StandardCharsets.UTF_8);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            LOGGER.error("[MetricsExporter] Failed to write metrics file {}: {}", target, e.getMessage());
+        }
+    }
+
+    String render() {
+        StringBuilder out = new StringBuilder(4096);
+        summary(out, "quartz4mc_fire_lag_seconds", "Delay between the scheduled fire time and the cron being queued", Kind.FIRE_LAG);
+        summary(out, "quartz4mc_queue_wait_seconds", "Time a fired cron waited for the server thread", Kind.QUEUE_WAIT);
+        summary(out, "quartz4mc_execution_seconds", "Server thread time spent executing the cron", Kind.EXECUTION);
+        stepSummary(out, "quartz4mc_step_execution_seconds", "Server thread time spent executing one step of a pipeline cron");
+
+        CronDispatcher.DispatcherStats dispatch = dispatcher.getStats();
+        gauge(out, "quartz4mc_dispatch_queue_depth", "Cron executions waiting for the server thread", dispatch.queueDepth);
+        counter(out, "quartz4mc_dispatch_executed_total", "Cron executions run by the dispatcher", dispatch.totalExecuted);
+        counter(out, "quartz4mc_dispatch_deferred_total", "Cron executions deferred to a later tick by the tick budget", dispatch.totalDeferred);
+        counter(out, "quartz4mc_dispatch_throttled_total", "Cron executions held back by the load governor", dispatch.totalThrottled);
+        counter(out, "quartz4mc_dispatch_shed_total", "Cron executions dropped after being held back too long", dispatch.totalShed);
+        counter(out, "quartz4mc_dispatch_coalesced_total", "Cron fires folded into an already pending execution", dispatch.totalCoalesced);
+        return out.toString();
+    }
+
+    private enum Kind { FIRE_LAG, QUEUE_WAIT, EXECUTION }
+
+    private void summary(StringBuilder out, String name, String help, Kind kind) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" summary\n");
+        for (Map.Entry<String, CronMetrics.CronStats> entry : metrics.getAll().entrySet()) {
+            LatencyHistogram histogram = select(entry.getValue(), kind);
+            if (histogram.getCount() == 0) continue;
+            String label = "cron=\"" + escape(entry.getKey()) + "\"";
+            for (double quantile : QUANTILES) {
+                out.append(name).append('{').append(label).append(",quantile=\"").append(quantile).append("\"} ")
+                        .append(seconds(histogram.percentile(quantile * 100.0))).append('\n');
+            }
+            out.append(name).append("_sum{").append(label).append("} ").append(seconds(histogram.getSumMicros())).append('\n');
+            out.append(name).append("_count{").append(label).append("} ").append(histogram.getCount()).append('\n');
+        }
+    }
+
+    private void stepSummary(StringBuilder out, String name, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" summary\n");
+        for (Map.Entry<String, CronMetrics.CronStats> entry : metrics.getAll().entrySet()) {
+            LatencyHistogram[] steps = entry.getValue().getSteps();
+            for (int step = 0; step < steps.length; step++) {
+                LatencyHistogram histogram = steps[step];
+                if (histogram.getCount() == 0) continue;
+                String label = "cron=\"" + escape(entry.getKey()) + "\",step=\"" + (step + 1) + "\"";
+                for (double quantile : QUANTILES) {
+                    out.append(name).append('{').append(label).append(",quantile=\"").append(quantile).append("\"} ")
+                            .append(seconds(histogram.percentile(quantile * 100.0))).append('\n');
+                }
+                out.append(name).append("_sum{").append(label).append("} ").append(seconds(histogram.getSumMicros())).append('\n');
+                out.append(name).append("_count{").append(label).append("} ").append(histogram.getCount()).append('\n');
+            }
+        }
+    }
+
+    private static LatencyHistogram select(CronMetrics.CronStats stats, Kind kind) {
+        switch (kind) {
+            case FIRE_LAG: return stats.fireLag;
+            case QUEUE_WAIT: return stats.queueWait;
+            default: return stats.execution;
+        }
+    }
+
+    private static void gauge(StringBuilder out, String name, String help, long value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" gauge\n");
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void counter(StringBuilder out, String name, String help, long value) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(" counter\n");
+        out.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static String seconds(long micros) {
+        return Double.toString(micros / 1_000_000.0);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,21 @@
+package com.captainziboo.quartz4mc.manager;
+
+// What happens to fires that could not run on time (server stopped, lagging or throttled)
+public enum MisfirePolicy {
+    FIRE_NOW, // Run every missed fire as soon as possible
+    SKIP, // Drop missed fires and wait for the next scheduled one
+    COALESCE; // Run missed fires once
+
+    public static MisfirePolicy parse(String value) {
+        if (value == null) return SKIP;
+        switch (value.trim().toLowerCase().replace('_', '-')) {
+            case "fire-now": return FIRE_NOW;
+            case "coalesce": return COALESCE;
+            default: return SKIP;
+        }
+    }
+
+    public String getName() {
+        return name().toLowerCase().replace('_', '-');
+    }
+}
@@ -0,0 +1,378 @@
+package com.captainziboo.quartz4mc.manager;
+
+import com.captainziboo.quartz4mc.config.QuartzConfig;
+import org.quartz.*;
+import org.quartz.impl.StdSchedulerFactory;
+import org.quartz.simpl.RAMJobStore;
+import org.quartz.simpl.SimpleThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Default engine: one JobDetail + trigger per cron in Quartz's RAMJobStore, fired from the Quartz thread pool.
+// In shared-job mode all crons point at a few durable jobs and their triggers only carry the cron id
+// (the trigger name): command and priority are looked up in the registry when the trigger fires.
+// The Quartz scheduler itself (scheduler thread, worker pool) is only created once a cron is scheduled.
+class QuartzEngine implements CronEngine {
+    private static final Logger LOGGER = LoggerFactory.getLogger("quartz4mc-engine");
+    static final String NAME = "quartz";
+    static final String GROUP = "quartz4mc";
+    static final String SHARED_GROUP = "quartz4mc-shared";
+    // Quartz walks (and clones) every trigger of a job whenever one of them is unscheduled, so crons
+    // are spread over several shared jobs to keep that list short
+    private static final int SHARED_JOBS = 1024;
+
+    private final Map<String, JobKey> scheduledJobs = new ConcurrentHashMap<>();
+    private final Set<String> sharedTriggers = ConcurrentHashMap.newKeySet(); // Shared-job mode: scheduled cron ids
+    private final JobDetail[] sharedJobs;
+    private final Properties properties;
+    private final boolean sharedJob;
+    private volatile Scheduler scheduler; // Null until the first cron is scheduled, and again once the last one is removed
+    private volatile boolean running = false;
+
+    QuartzEngine(QuartzConfig.SchedulerSettings settings) {
+        this.properties = buildProperties(settings);
+        this.sharedJob = settings != null && settings.sharedJob;
+        this.sharedJobs = new JobDetail[sharedJob ? SHARED_JOBS : 0]; // Built with the scheduler
+    }
+
+    // Scheduler properties built from the "scheduler" config section instead of Quartz's defaults
+    static Properties buildProperties(QuartzConfig.SchedulerSettings settings) {
+        if (settings == null) settings = new QuartzConfig.SchedulerSettings();
+        int threadCount = Math.max(1, settings.threadCount);
+        boolean platform = "platform".equalsIgnoreCase(settings.threadPool);
+
+        Properties properties = new Properties();
+        properties.setProperty("org.quartz.scheduler.instanceName", "Quartz4MC");
+        properties.setProperty("org.quartz.scheduler.skipUpdateCheck", "true");
+        properties.setProperty("org.quartz.scheduler.makeSchedulerThreadDaemon", "true");
+        properties.setProperty("org.quartz.scheduler.batchTriggerAcquisitionMaxCount",
+                Integer.toString(Math.max(1, Math.min(threadCount, settings.batchTriggerAcquisitionMaxCount))));
+        properties.setProperty("org.quartz.scheduler.idleWaitTime", Long.toString(Math.max(1_000L, settings.idleWaitTimeMillis)));
+        properties.setProperty("org.quartz.threadPool.class", platform ? SimpleThreadPool.class.getName() : VirtualThreadPool.class.getName());
+        properties.setProperty("org.quartz.threadPool.threadCount", Integer.toString(threadCount));
+        if (platform) properties.setProperty("org.quartz.threadPool.makeThreadsDaemons", "true");
+        properties.setProperty("org.quartz.jobStore.class", RAMJobStore.class.getName());
+        properties.setProperty("org.quartz.jobStore.misfireThreshold", Long.toString(Math.max(0L, settings.misfireThresholdMillis)));
+        return properties;
+    }
+
+    // True when this engine was built from equivalent scheduler settings
+    boolean matches(QuartzConfig.SchedulerSettings settings) {
+        return properties.equals(buildProperties(settings)) && sharedJob == (settings != null && settings.sharedJob);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    // The Quartz scheduler is created by the first schedule() or applyBatch() that adds a cron
+    @Override
+    public boolean start() {
+        running = true;
+        LOGGER.debug("[QuartzEngine] Engine started, Quartz Scheduler deferred until a cron is scheduled");
+        return true;
+    }
+
+    private synchronized Scheduler scheduler() throws SchedulerException {
+        if (!running) throw new SchedulerException("Quartz engine is stopped");
+        if (scheduler == null) {
+            // A Quartz scheduler cannot be restarted once shut down: build a new one every time
+            Scheduler created = new StdSchedulerFactory(properties).getScheduler();
+            for (int i = 0; i < sharedJobs.length; i++) {
+                if (sharedJobs[i] == null) {
+                    sharedJobs[i] = JobBuilder.newJob(QuartzManager.MinecraftCommandJob.class)
+                            .withIdentity("shared-" + i, SHARED_GROUP)
+                            .storeDurably()
+                            .build();
+                }
+                created.addJob(sharedJobs[i], true);
+            }
+            created.start();
+            scheduler = created;
+            LOGGER.debug("[QuartzEngine] Quartz Scheduler started ({} pool, {} thread(s))",
+                    properties.getProperty("org.quartz.threadPool.class"), properties.getProperty("org.quartz.threadPool.threadCount"));
+        }
+        return scheduler;
+    }
+
+    @Override
+    public synchronized void shutdown(long timeoutMillis) {
+        if (!running) return;
+        running = false;
+        scheduledJobs.clear();
+        sharedTriggers.clear();
+        if (scheduler != null) {
+            try {
+                int abandoned = shutdownWithin(scheduler, timeoutMillis);
+                if (abandoned > 0) LOGGER.warn("[QuartzEngine] {} fire(s) still running after {} ms, not waiting for them", abandoned, timeoutMillis);
+            } catch (SchedulerException e) {
+                LOGGER.error("[QuartzEngine] Error stopping Quartz scheduler", e);
+            }
+            scheduler = null;
+        }
+        LOGGER.debug("[QuartzEngine] Quartz Scheduler stopped");
+    }
+
+    // Stops firing at once, then gives running jobs up to timeoutMillis to hand their fire over to the
+    // dispatcher before shutting down without them. Returns the number of jobs left running.
+    static int shutdownWithin(Scheduler scheduler, long timeoutMillis) throws SchedulerException {
+        scheduler.standby();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(0L, timeoutMillis));
+        int executing = scheduler.getCurrentlyExecutingJobs().size();
+        while (executing > 0 && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(10L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            executing = scheduler.getCurrentlyExecutingJobs().size();
+        }
+        scheduler.shutdown(executing == 0);
+        return executing;
+    }
+
+    // No cron left (reload or stop): the scheduler thread and the worker pool go away until the next one is scheduled
+    private synchronized void releaseIfIdle() {
+        Scheduler current = scheduler;
+        if (current == null || getScheduledCount() > 0) return;
+        scheduler = null;
+        try {
+            current.shutdown(false);
+            LOGGER.debug("[QuartzEngine] No cron scheduled, Quartz Scheduler stopped");
+        } catch (SchedulerException e) {
+            LOGGER.error("[QuartzEngine] Error stopping idle Quartz scheduler", e);
+        }
+    }
+
+    @Override
+    public synchronized void schedule(QuartzConfig.CronEntry entry) throws Exception {
+        Scheduler scheduler = scheduler();
+        if (sharedJob) {
+            scheduler.scheduleJob(buildSharedTrigger(entry));
+            sharedTriggers.add(entry.id);
+            return;
+        }
+        JobDetail job = buildJob(entry);
+        scheduler.scheduleJob(job, buildTrigger(entry));
+        scheduledJobs.put(entry.id, job.getKey());
+    }
+
+    @Override
+    public synchronized void applyBatch(List<String> removedIds, List<QuartzConfig.CronEntry> added) {
+        if (scheduler == null && !added.isEmpty()) {
+            try {
+                scheduler();
+            } catch (SchedulerException e) {
+                LOGGER.error("[QuartzEngine] Failed to start Quartz scheduler", e);
+                return;
+            }
+        }
+        if (sharedJob) applySharedBatch(removedIds, added);
+        else applyJobBatch(removedIds, added);
+        releaseIfIdle();
+    }
+
+    private void applyJobBatch(List<String> removedIds, List<QuartzConfig.CronEntry> added) {
+        List<JobKey> removedKeys = new ArrayList<>();
+        for (String id : removedIds) {
+            JobKey key = scheduledJobs.remove(id);
+            if (key != null) removedKeys.add(key);
+        }
+
+        Map<JobDetail, Set<? extends Trigger>> jobs = new HashMap<>();
+        Map<String, JobKey> addedKeys = new HashMap<>();
+        for (QuartzConfig.CronEntry entry : added) {
+            try {
+                JobDetail job = buildJob(entry);
+                jobs.put(job, Collections.singleton(buildTrigger(entry)));
+                addedKeys.put(entry.id, job.getKey());
+            } catch (Exception e) {
+                LOGGER.error("[QuartzEngine] Failed to build cron '{}': {}", entry.id, e.getMessage(), e);
+            }
+        }
+
+        try {
+            if (!removedKeys.isEmpty()) scheduler.deleteJobs(removedKeys);
+            if (!jobs.isEmpty()) scheduler.scheduleJobs(jobs, true);
+            scheduledJobs.putAll(addedKeys);
+        } catch (SchedulerException e) {
+            LOGGER.error("[QuartzEngine] Batch scheduling failed, falling back to one cron at a time: {}", e.getMessage(), e);
+            CronEngine.super.applyBatch(List.of(), added);
+        }
+    }
+
+    private void applySharedBatch(List<String> removedIds, List<QuartzConfig.CronEntry> added) {
+        List<TriggerKey> removedKeys = new ArrayList<>();
+        for (String id : removedIds) {
+            if (sharedTriggers.remove(id)) removedKeys.add(TriggerKey.triggerKey(id, GROUP));
+        }
+
+        Map<JobDetail, Set<? extends Trigger>> jobs = new HashMap<>();
+        List<String> addedIds = new ArrayList<>();
+        for (QuartzConfig.CronEntry entry : added) {
+            try {
+                Trigger trigger = buildSharedTrigger(entry);
+                @SuppressWarnings("unchecked")
+                Set<Trigger> triggers = (Set<Trigger>) jobs.computeIfAbsent(sharedJobFor(entry.id), job -> new HashSet<Trigger>());
+                triggers.add(trigger);
+                addedIds.add(entry.id);
+            } catch (Exception e) {
+                LOGGER.error("[QuartzEngine] Failed to build cron '{}': {}", entry.id, e.getMessage(), e);
+            }
+        }
+
+        try {
+            if (!removedKeys.isEmpty()) scheduler.unscheduleJobs(removedKeys);
+            if (!jobs.isEmpty()) scheduler.scheduleJobs(jobs, true);
+            sharedTriggers.addAll(addedIds);
+        } catch (SchedulerException e) {
+            LOGGER.error("[QuartzEngine] Batch scheduling failed, falling back to one cron at a time: {}", e.getMessage(), e);
+            CronEngine.super.applyBatch(List.of(), added);
+        }
+    }
+
+    private JobDetail sharedJobFor(String id) {
+        return sharedJobs[Math.floorMod(id.hashCode(), sharedJobs.length)];
+    }
+
+    // Only the cron id (as trigger name) and the schedule: no JobDataMap, no per-cron JobDetail
+    private Trigger buildSharedTrigger(QuartzConfig.CronEntry entry) throws Exception {
+        MisfirePolicy misfire = MisfirePolicy.parse(entry.misfire);
+        if (Schedules.isTickInterval(entry.schedule)) {
+            return TriggerBuilder.newTrigger()
+                    .withIdentity(TriggerKey.triggerKey(entry.id, GROUP))
+                    .forJob(sharedJobFor(entry.id).getKey())
+                    .withSchedule(buildSchedule(entry.schedule, misfire))
+                    .build();
+        }
+
+        SharedCronTrigger trigger = new SharedCronTrigger();
+        trigger.setKey(TriggerKey.triggerKey(entry.id, GROUP));
+        trigger.setJobKey(sharedJobFor(entry.id).getKey());
+        trigger.setSharedExpression(Schedules.compile(entry.schedule));
+        trigger.setStartTime(new Date());
+        switch (misfire) {
+            case FIRE_NOW: trigger.setMisfireInstruction(Trigger.MISFIRE_INSTRUCTION_IGNORE_MISFIRE_POLICY); break;
+            case COALESCE: trigger.setMisfireInstruction(CronTrigger.MISFIRE_INSTRUCTION_FIRE_ONCE_NOW); break;
+            default: trigger.setMisfireInstruction(CronTrigger.MISFIRE_INSTRUCTION_DO_NOTHING); break;
+        }
+        return trigger;
+    }
+
+    private TriggerKey triggerKey(String id) {
+        return TriggerKey.triggerKey(sharedJob ? id : id + "_trigger", GROUP);
+    }
+
+    private static JobDetail buildJob(QuartzConfig.CronEntry entry) {
+        return JobBuilder.newJob(QuartzManager.MinecraftCommandJob.class)
+                .withIdentity(entry.id, GROUP)
+                .usingJobData("command", entry.command)
+                .usingJobData("cronId", entry.id)
+                .usingJobData("priority", entry.priority)
+                .build();
+    }
+
+    private static Trigger buildTrigger(QuartzConfig.CronEntry entry) throws Exception {
+        return TriggerBuilder.newTrigger()
+                .withIdentity(entry.id + "_trigger", GROUP)
+                .withSchedule(buildSchedule(entry.schedule, MisfirePolicy.parse(entry.misfire)))
+                .build();
+    }
+
+    static ScheduleBuilder<? extends Trigger> buildSchedule(String schedule, MisfirePolicy misfire) throws Exception {
+        if (Schedules.isTickInterval(schedule)) {
+            // Tick intervals have no Quartz equivalent: approximate with 50 ms per tick
+            long interval = Schedules.parseTickInterval(schedule) * Schedules.MILLIS_PER_TICK;
+            SimpleScheduleBuilder simple = SimpleScheduleBuilder.simpleSchedule()
+                    .withIntervalInMilliseconds(interval)
+                    .repeatForever();
+            switch (misfire) {
+                case FIRE_NOW: return simple.withMisfireHandlingInstructionIgnoreMisfires();
+                case COALESCE: return simple.withMisfireHandlingInstructionNowWithExistingCount();
+                default: return simple.withMisfireHandlingInstructionNextWithRemainingCount();
+            }
+        }
+        CronScheduleBuilder cron = CronScheduleBuilder.cronSchedule(Schedules.compile(schedule));
+        switch (misfire) {
+            case FIRE_NOW: return cron.withMisfireHandlingInstructionIgnoreMisfires();
+            case COALESCE: return cron.withMisfireHandlingInstructionFireAndProceed();
+            default: return cron.withMisfireHandlingInstructionDoNothing();
+        }
+    }
+
+    // Stopping the last cron releases the scheduler, as a reload that leaves none does
+    @Override
+    public synchronized boolean unschedule(String id) {
+        boolean removed = remove(id);
+        releaseIfIdle();
+        return removed;
+    }
+
+    private boolean remove(String id) {
+        if (sharedJob) {
+            if (!sharedTriggers.remove(id) || scheduler == null) return false;
+            try {
+                return scheduler.unscheduleJob(TriggerKey.triggerKey(id, GROUP));
+            } catch (SchedulerException e) {
+                LOGGER.error("[QuartzEngine] Error stopping cron '{}': {}", id, e.getMessage(), e);
+                return false;
+            }
+        }
+        JobKey key = scheduledJobs.remove(id);
+        if (key != null && scheduler != null) {
+            try {
+                scheduler.deleteJob(key);
+                return true;
+            } catch (SchedulerException e) {
+                LOGGER.error("[QuartzEngine] Error stopping cron '{}': {}", id, e.getMessage(), e);
+                return false;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean isScheduled(String id) {
+        return sharedJob ? sharedTriggers.contains(id) : scheduledJobs.containsKey(id);
+    }
+
+    @Override
+    public long getNextFireMillis(String id) {
+        Scheduler current = scheduler;
+        if (current == null || !isScheduled(id)) return -1L;
+        try {
+            Trigger trigger = current.getTrigger(triggerKey(id));
+            Date next = trigger != null ? trigger.getNextFireTime() : null;
+            return next != null ? next.getTime() : -1L;
+        } catch (SchedulerException e) {
+            return -1L;
+        }
+    }
+
+    @Override
+    public int getScheduledCount() {
+        return sharedJob ? sharedTriggers.size() : scheduledJobs.size();
+    }
+
+    @Override
+    public Map<String, String> describe() {
+        Map<String, String> keys = new ConcurrentHashMap<>();
+        scheduledJobs.forEach((id, key) -> keys.put(id, key.toString()));
+        for (String id : sharedTriggers) keys.put(id, GROUP + "." + id);
+        return keys;
+    }
+}
@@ -1,32 +1,48 @@
 package com.captainziboo.quartz4mc.manager;
 
-import com.captainziboo.quartz4mc.Quartz4MC;
 import com.captainziboo.quartz4mc.config.QuartzConfig;
 import org.quartz.*;
-import org.quartz.impl.StdSchedulerFactory;
 import net.minecraft.server.MinecraftServer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class QuartzManager {
     private static final Logger LOGGER = LoggerFactory.getLogger("cron4mc-manager");
+    private static final int MAX_LOGGED_DROPS = 20; // Crons named in the shutdown log, the others are only counted
     private static QuartzManager instance;
-    private Scheduler scheduler;
-    private final Map<String, JobKey> scheduledJobs;
+    private volatile CronEngine engine;
+    private volatile ClusterEngine cluster; // Cluster-scoped crons, null unless clustering is enabled
+    private final Map<String, LiveCron> liveCrons = new ConcurrentHashMap<>(); // id -> what is scheduled
+    private final CronMetrics metrics = new CronMetrics();
+    private final LoadGovernor governor = new LoadGovernor();
+    private final CircuitBreaker breaker = new CircuitBreaker();
+    private final ExecutionHistory history = new ExecutionHistory();
+    private final CronProfiler profiler = new CronProfiler();
+    private final CronDispatcher dispatcher = new CronDispatcher(metrics, governor, profiler);
+    private final MetricsExporter metricsExporter = new MetricsExporter(metrics, dispatcher);
+    private final CommandParseCache parseCache = new CommandParseCache();
+    private final CronEvents events = new CronEvents();
     private MinecraftServer server;
+    private volatile CommandExecutor executor;
+    private volatile QuartzConfig config;
     private volatile boolean isRunning = false;
+    private volatile CronClock clock = CronClock.SYSTEM;
 
     private QuartzManager() {
-        this.scheduledJobs = new ConcurrentHashMap<>();
-        try {
-            this.scheduler = StdSchedulerFactory.getDefaultScheduler();
-            LOGGER.debug("[QuartzManager] Quartz Scheduler initialized");
-        } catch (SchedulerException e) {
-            LOGGER.error("[QuartzManager] Failed to create Quartz scheduler", e);
-        }
+        this.engine = new QuartzEngine(new QuartzConfig.SchedulerSettings());
+        profiler.setUuidResolver(id -> {
+            LiveCron live = liveCrons.get(id);
+            return live != null ? live.uuid : null;
+        });
     }
 
     public static synchronized QuartzManager getInstance() {
@@ -35,75 +51,301 @@ public class QuartzManager {
     }
 
     public void initialize(MinecraftServer server) {
-        this.server = server;
-        if (!isRunning && scheduler != null) {
-            try {
-                scheduler.start();
-                isRunning = true;
-                LOGGER.debug("[QuartzManager] Quartz Scheduler started");
-            } catch (SchedulerException e) {
-                LOGGER.error("[QuartzManager] Failed to start Quartz scheduler", e);
+        initialize(server, new CommandExecutor() {
+            @Override
+            public boolean execute(String cronId, String command) {
+                return parseCache.execute(server, cronId, command);
+            }
+
+            @Override
+            public List<? extends FanOutTarget> resolveTargets(String selector) throws Exception {
+                return CommandParseCache.resolveTargets(server, selector);
+            }
+
+            @Override
+            public boolean executeAs(String cronId, String command, FanOutTarget target) {
+                return parseCache.execute(server, cronId, command, ((CommandParseCache.EntityTarget) target).entity);
+            }
+
+            @Override
+            public int getLastResult() {
+                return parseCache.getLastResult();
             }
+        });
+    }
+
+    // The simulator swaps in a virtual clock before initializing the manager
+    void useClock(CronClock clock) {
+        this.clock = clock;
+        dispatcher.setClock(clock);
+        governor.setClock(clock);
+    }
+
+    CronClock clock() {
+        return clock;
+    }
+
+    // Benchmarks and tools start the manager without a Minecraft server
+    void initialize(MinecraftServer server, CommandExecutor executor) {
+        this.server = server;
+        this.executor = executor;
+        profiler.setProfiler(server != null ? server::getProfiler : () -> null);
+        if (!isRunning) {
+            isRunning = engine.start();
+            if (isRunning) LOGGER.debug("[QuartzManager] Scheduler started ({} engine)", engine.getName());
+            if (isRunning && cluster != null) cluster.start();
         }
     }
 
+    // Server stop (server thread): the engines stop firing and running fires get until the shutdown timeout
+    // to reach the dispatcher, queued fires are then run with what is left of it, and the rest is dropped
     public void shutdown() {
-        if (isRunning && scheduler != null) {
-            try {
-                scheduler.shutdown(true);
-                scheduledJobs.clear();
-                isRunning = false;
-                LOGGER.debug("[QuartzManager] Quartz Scheduler stopped");
-            } catch (SchedulerException e) {
-                LOGGER.error("[QuartzManager] Error stopping Quartz scheduler", e);
+        if (isRunning) {
+            QuartzConfig current = config;
+            long timeoutMillis = shutdownTimeoutMillis(current);
+            long deadline = System.nanoTime() + timeoutMillis * 1_000_000L;
+            engine.shutdown(timeoutMillis);
+            if (cluster != null) cluster.shutdown(remainingMillis(deadline));
+            metricsExporter.stop();
+            if (current == null || current.dispatcher == null || current.dispatcher.drainOnShutdown) {
+                int drained = dispatcher.drain(remainingMillis(deadline) * 1_000_000L);
+                if (drained > 0) LOGGER.info("[QuartzManager] Ran {} queued cron execution(s) before stopping", drained);
+            }
+            dumpHistoryOnShutdown();
+            liveCrons.clear();
+            events.clear();
+            breaker.clear();
+            parseCache.invalidateAll();
+            logDropped(dispatcher.clear());
+            isRunning = false;
+            LOGGER.debug("[QuartzManager] Scheduler stopped");
+        }
+    }
+
+    private static long shutdownTimeoutMillis(QuartzConfig config) {
+        QuartzConfig.SchedulerSettings settings = config != null && config.scheduler != null ? config.scheduler : new QuartzConfig.SchedulerSettings();
+        return Math.max(0L, settings.shutdownTimeoutMillis);
+    }
+
+    private static long remainingMillis(long deadlineNanos) {
+        return Math.max(0L, (deadlineNanos - System.nanoTime()) / 1_000_000L);
+    }
+
+    private static void logDropped(Map<String, Integer> dropped) {
+        if (dropped.isEmpty()) return;
+        int total = 0;
+        StringBuilder crons = new StringBuilder();
+        int listed = 0;
+        for (Map.Entry<String, Integer> entry : dropped.entrySet()) {
+            total += entry.getValue();
+            if (listed++ < MAX_LOGGED_DROPS) {
+                if (crons.length() > 0) crons.append(", ");
+                crons.append(entry.getKey()).append(" x").append(entry.getValue());
             }
         }
+        if (dropped.size() > MAX_LOGGED_DROPS) crons.append(" and ").append(dropped.size() - MAX_LOGGED_DROPS).append(" more cron(s)");
+        LOGGER.warn("[QuartzManager] Dropped {} pending cron execution(s) on shutdown: {}", total, crons);
+    }
+
+    // Called from the server thread at the start of every tick
+    public void tick() {
+        governor.onTickStart();
+        if (isRunning) engine.tick();
+        dispatcher.tick();
+    }
+
+    // Called from the server thread at the end of every tick
+    public void tickEnd() {
+        governor.onTickEnd();
     }
 
     public int loadAndStartEnabledCrons(QuartzConfig config) {
-        stopAllCrons();
-        int loaded = 0;
+        return reload(config).scheduled;
+    }
+
+    // Diffs the config against what is scheduled (by CronEntry.uuid) and only touches added, modified
+    // and removed crons, in one batched engine operation.
+    public ReloadResult reload(QuartzConfig config) {
+        this.config = config;
+        dispatcher.configure(config.dispatcher);
+        dispatcher.configureGroups(config.groups != null ? config.groups : Map.of());
+        governor.configure(config.governor);
+        breaker.configure(config.breaker);
+        history.configure(config.history);
+        profiler.configure(config.profiling);
+        metricsExporter.configure(config.metrics);
+
+        selectEngine(config); // Switching engines stops everything: all crons are then re-added
+        selectCluster(config);
+
+        Map<String, LiveCron> liveByUuid = new HashMap<>();
+        for (LiveCron live : liveCrons.values()) liveByUuid.put(live.uuid, live);
+
+        List<String> removedIds = new ArrayList<>();
+        List<QuartzConfig.CronEntry> added = new ArrayList<>();
+        int addedCount = 0, updatedCount = 0, unchangedCount = 0, failedCount = 0;
+        Set<String> seenIds = new HashSet<>();
+
         for (QuartzConfig.CronEntry entry : config.crons) {
-            if (entry != null && entry.enabled) {
-                try {
-                    if (startCron(entry)) loaded++;
-                } catch (Exception e) {
-                    LOGGER.error("[QuartzManager] Failed to start cron '{}' during load: {}", entry.id, e.getMessage(), e);
-                }
+            if (entry == null || !entry.enabled || entry.id == null) continue;
+            if (!seenIds.add(entry.id)) {
+                LOGGER.warn("[QuartzManager] Duplicate cron id '{}' ignored", entry.id);
+                continue;
+            }
+
+            LiveCron live = liveByUuid.remove(entry.uuid);
+            String fingerprint = entry.fingerprint();
+            if (live != null && live.fingerprint.equals(fingerprint)) {
+                unchangedCount++;
+                continue;
+            }
+
+            try {
+                Schedules.validate(entry.schedule);
+                CommandPipeline.validate(entry);
+            } catch (Exception e) {
+                LOGGER.error("[QuartzManager] Failed to start cron '{}' during load: {}", entry.id, e.getMessage());
+                if (live != null) removedIds.add(live.id);
+                failedCount++;
+                continue;
+            }
+
+            warnUnknownGroup(entry);
+            if (live != null) {
+                removedIds.add(live.id);
+                updatedCount++;
+            } else {
+                addedCount++;
+            }
+            added.add(entry);
+        }
+
+        // Whatever is still live but no longer enabled in the config
+        for (LiveCron live : liveByUuid.values()) removedIds.add(live.id);
+        int removedCount = liveByUuid.size();
+
+        // Event crons never reach the engine, cluster-scoped ones go to the cluster engine when clustering is on
+        ClusterEngine cluster = this.cluster;
+        List<String> engineRemovedIds = new ArrayList<>();
+        List<String> clusterRemovedIds = new ArrayList<>();
+        for (String id : removedIds) {
+            if (events.unregister(id)) continue;
+            if (cluster != null && cluster.isScheduled(id)) clusterRemovedIds.add(id);
+            else engineRemovedIds.add(id);
+        }
+        List<QuartzConfig.CronEntry> engineAdded = new ArrayList<>();
+        List<QuartzConfig.CronEntry> clusterAdded = new ArrayList<>();
+        for (QuartzConfig.CronEntry entry : added) {
+            if (Schedules.isEvent(entry.schedule)) {
+                if (isRunning) registerEvent(entry);
+            } else if (runsOnCluster(entry)) {
+                clusterAdded.add(entry);
+            } else {
+                engineAdded.add(entry);
+            }
+        }
+
+        if (isRunning && (!engineRemovedIds.isEmpty() || !engineAdded.isEmpty())) {
+            engine.applyBatch(engineRemovedIds, engineAdded);
+        }
+        if (isRunning && cluster != null && cluster.isRunning()) {
+            // Updated crons are re-added under the same id. The others are paused for every node while the config
+            // still has them as cluster crons (disabled), and deleted from the shared database otherwise.
+            Set<String> readdedIds = new HashSet<>();
+            for (QuartzConfig.CronEntry entry : clusterAdded) readdedIds.add(entry.id);
+            List<String> releasedIds = new ArrayList<>();
+            for (String id : clusterRemovedIds) {
+                QuartzConfig.CronEntry entry = config.getCronById(id);
+                if (readdedIds.contains(id)) releasedIds.add(id);
+                else if (entry != null && entry.isClusterScoped()) cluster.unschedule(id);
+                else cluster.delete(id);
+            }
+            if (!releasedIds.isEmpty() || !clusterAdded.isEmpty()) cluster.applyBatch(releasedIds, clusterAdded);
+        }
+        for (String id : removedIds) {
+            LiveCron live = liveCrons.remove(id);
+            breaker.remove(id); // Modified crons start with a closed breaker
+            parseCache.invalidate(id, live != null && live.pipeline != null ? live.pipeline.size() : 1);
+        }
+        for (QuartzConfig.CronEntry entry : added) {
+            if (!isCronScheduled(entry.id)) {
+                failedCount++;
+                continue;
+            }
+            LiveCron live = new LiveCron(entry);
+            liveCrons.put(entry.id, live);
+            prepareCommands(live, entry);
+        }
+
+        ReloadResult result = new ReloadResult(addedCount, updatedCount, removedCount, unchangedCount, failedCount, getScheduledCount());
+        LOGGER.debug("[QuartzManager] Reload: {} added, {} updated, {} removed, {} unchanged, {} failed",
+                result.added, result.updated, result.removed, result.unchanged, result.failed);
+        return result;
+    }
+
+    // Swaps the engine when the configured one (or its Quartz scheduler settings) differs from the current one
+    private void selectEngine(QuartzConfig config) {
+        if (engine instanceof TickEngine) ((TickEngine) engine).configure(config.scheduler);
+        String wanted = TickEngine.NAME.equalsIgnoreCase(config.engine) ? TickEngine.NAME : QuartzEngine.NAME;
+        if (wanted.equals(engine.getName())
+                && !(engine instanceof QuartzEngine && !((QuartzEngine) engine).matches(config.scheduler))) return;
+
+        boolean wasRunning = isRunning;
+        stopAllCrons();
+        if (wasRunning) engine.shutdown(shutdownTimeoutMillis(config));
+        engine = TickEngine.NAME.equals(wanted) ? new TickEngine(this, config.scheduler) : new QuartzEngine(config.scheduler);
+        if (wasRunning) isRunning = engine.start();
+        LOGGER.debug("[QuartzManager] Switched to {} engine", wanted);
+    }
+
+    // Starts, restarts or stops the cluster engine to match the "cluster" settings. Its crons are only
+    // released locally (the other nodes keep running them) and re-added by the reload diff.
+    private void selectCluster(QuartzConfig config) {
+        boolean wanted = config.cluster != null && config.cluster.enabled;
+        ClusterEngine current = cluster;
+        if (current == null ? !wanted : wanted && current.matches(config.cluster, config.scheduler)) return;
+
+        if (current != null) {
+            for (String id : current.describe().keySet()) {
+                current.release(id);
+                liveCrons.remove(id);
             }
+            current.shutdown(shutdownTimeoutMillis(config));
         }
-        return loaded;
+        cluster = wanted ? new ClusterEngine(config.cluster, config.scheduler) : null;
+        if (cluster != null && isRunning) cluster.start();
+        LOGGER.debug("[QuartzManager] Clustering {}", wanted ? "enabled" : "disabled");
+    }
+
+    // Cluster-scoped crons run on every node like the others while clustering is off (or could not start)
+    private boolean runsOnCluster(QuartzConfig.CronEntry entry) {
+        ClusterEngine current = cluster;
+        return entry.isClusterScoped() && current != null && current.isRunning();
     }
 
     private void stopAllCrons() {
         // Safe iteration over snapshot of keys
-        for (String id : scheduledJobs.keySet().toArray(new String[0])) {
+        for (String id : engine.describe().keySet().toArray(new String[0])) {
             stopCron(id);
         }
     }
 
     public boolean startCron(QuartzConfig.CronEntry entry) {
-        if (!isRunning || scheduler == null) return false;
+        if (!isRunning) return false;
 
         // Stop existing job if present
-        if (scheduledJobs.containsKey(entry.id)) stopCron(entry.id);
+        if (engine.isScheduled(entry.id)) stopCron(entry.id);
 
         try {
-            CronExpression.validateExpression(entry.schedule);
-            JobDetail job = JobBuilder.newJob(MinecraftCommandJob.class)
-                    .withIdentity(entry.id, "quartz4mc")
-                    .usingJobData("command", entry.command)
-                    .usingJobData("cronId", entry.id)
-                    .build();
-
-            CronTrigger trigger = TriggerBuilder.newTrigger()
-                    .withIdentity(entry.id + "_trigger", "quartz4mc")
-                    .withSchedule(CronScheduleBuilder.cronSchedule(entry.schedule)
-                            .withMisfireHandlingInstructionDoNothing())
-                    .build();
-
-            scheduler.scheduleJob(job, trigger);
-            scheduledJobs.put(entry.id, job.getKey());
+            Schedules.validate(entry.schedule);
+            CommandPipeline.validate(entry);
+            warnUnknownGroup(entry);
+            if (Schedules.isEvent(entry.schedule)) registerEvent(entry);
+            else if (runsOnCluster(entry)) cluster.schedule(entry);
+            else engine.schedule(entry);
+            LiveCron live = new LiveCron(entry);
+            liveCrons.put(entry.id, live);
+            prepareCommands(live, entry);
             LOGGER.debug("[QuartzManager] Started cron '{}'", entry.id);
             return true;
         } catch (Exception e) {
@@ -112,79 +354,335 @@ public class QuartzManager {
         }
     }
 
+    // Parses the cron's command (or every pipeline step) ahead of its first fire. Server thread only.
+    private void prepareCommands(LiveCron live, QuartzConfig.CronEntry entry) {
+        if (live.pipeline == null) {
+            parseCache.prepare(server, entry.id, entry.command);
+            return;
+        }
+        for (int step = 0; step < live.pipeline.size(); step++) {
+            parseCache.prepare(server, CommandPipeline.stepKey(entry.id, step), live.pipeline.command(step));
+        }
+    }
+
     public boolean stopCron(String id) {
-        JobKey key = scheduledJobs.remove(id);
-        if (key != null && scheduler != null) {
-            try {
-                scheduler.deleteJob(key);
-                LOGGER.debug("[QuartzManager] Stopped cron '{}'", id);
-                return true;
-            } catch (SchedulerException e) {
-                LOGGER.error("[QuartzManager] Error stopping cron '{}': {}", id, e.getMessage(), e);
-                return false;
-            }
+        LiveCron live = liveCrons.remove(id);
+        breaker.remove(id);
+        parseCache.invalidate(id, live != null && live.pipeline != null ? live.pipeline.size() : 1);
+        ClusterEngine cluster = this.cluster;
+        if (events.unregister(id) || engine.unschedule(id) || (cluster != null && cluster.unschedule(id))) {
+            LOGGER.debug("[QuartzManager] Stopped cron '{}'", id);
+            return true;
         }
         return false;
     }
 
+    // Stops the cron and deletes its cluster job, if any, from the shared database for every node
+    public boolean removeCron(String id) {
+        boolean stopped = stopCron(id);
+        ClusterEngine cluster = this.cluster;
+        if (cluster != null && cluster.isRunning()) cluster.delete(id);
+        return stopped;
+    }
+
     public boolean isCronScheduled(String id) {
-        return scheduledJobs.containsKey(id);
+        ClusterEngine cluster = this.cluster;
+        return events.contains(id) || engine.isScheduled(id) || (cluster != null && cluster.isScheduled(id));
+    }
+
+    private int getScheduledCount() {
+        ClusterEngine cluster = this.cluster;
+        return engine.getScheduledCount() + events.size() + (cluster != null ? cluster.getScheduledCount() : 0);
+    }
+
+    private void warnUnknownGroup(QuartzConfig.CronEntry entry) {
+        if (entry.group != null && !dispatcher.hasGroup(entry.group)) {
+            LOGGER.warn("[QuartzManager] Cron '{}' uses unknown group '{}', it will run without limits", entry.id, entry.group);
+        }
+    }
+
+    private void registerEvent(QuartzConfig.CronEntry entry) {
+        try {
+            events.register(entry.id, EventTrigger.parse(entry.schedule));
+        } catch (Exception e) {
+            LOGGER.error("[QuartzManager] Failed to start cron '{}': {}", entry.id, e.getMessage());
+        }
+    }
+
+    // Fabric events, called from the server thread
+    public void onServerStarted(int players) {
+        fireEvents(events.onServerStarted(players));
+    }
+
+    public void onPlayerJoin() {
+        fireEvents(events.onPlayerJoin());
+    }
+
+    public void onPlayerLeave() {
+        fireEvents(events.onPlayerLeave());
+    }
+
+    // Same path as a Quartz fire: dispatcher queue, failure counting, metrics
+    private void fireEvents(List<String> ids) {
+        if (!isRunning || ids.isEmpty()) return;
+        long now = clock.millis();
+        for (String id : ids) fire(id, now);
+    }
+
+    // Shared-job triggers only carry the cron id: command and priority are read from the registry
+    void fire(String cronId, long scheduledFireMillis) {
+        QuartzConfig current = config;
+        QuartzConfig.CronEntry entry = current != null ? current.getCronById(cronId) : null;
+        if (entry == null) {
+            LOGGER.warn("[QuartzManager] Cron '{}' fired but is no longer configured", cronId);
+            return;
+        }
+        if (!entry.enabled) {
+            // A cluster fire acquired just before the cron was stopped (its trigger is paused right after)
+            LOGGER.debug("[QuartzManager] Fire of cron '{}' skipped, it is disabled on this node", cronId);
+            return;
+        }
+        fire(cronId, entry.command, entry.priority, scheduledFireMillis);
+    }
+
+    // Called by the engines whenever a cron fires, from any thread
+    void fire(String cronId, String command, int priority, long scheduledFireMillis) {
+        CommandExecutor executor = this.executor;
+        if (executor == null) {
+            LOGGER.error("[QuartzManager] Server null for cron '{}'", cronId);
+            return;
+        }
+        if (!breaker.allow(cronId, clock.millis())) {
+            LOGGER.debug("[QuartzManager] Fire of cron '{}' dropped, its circuit breaker is open", cronId);
+            profiler.onFire(cronId, scheduledFireMillis, true);
+            return;
+        }
+        profiler.onFire(cronId, scheduledFireMillis, false);
+        if (scheduledFireMillis > 0L) {
+            metrics.recordFireLag(cronId, (clock.millis() - scheduledFireMillis) * 1_000L);
+        }
+        LiveCron live = liveCrons.get(cronId);
+        CostClass cost = live != null ? live.cost : CostClass.NORMAL;
+        MisfirePolicy misfire = live != null ? live.misfire : MisfirePolicy.SKIP;
+        long delayTicks = live != null ? live.offsetTicks : 0L;
+        long fireMillis = scheduledFireMillis > 0L ? scheduledFireMillis : clock.millis();
+        Runnable task;
+        if (live != null && live.pipeline != null) {
+            task = live.pipeline.newRun(executor, dispatcher, metrics, history, priority, cost, fireMillis);
+        } else if (live != null && live.fanOut != null) {
+            task = new FanOutRun(cronId, command, live.fanOut, live.fanOutSlice, executor, dispatcher, history, priority, cost, fireMillis);
+        } else {
+            task = () -> {
+                long startMillis = clock.millis();
+                long start = clock.nanos();
+                boolean success = MinecraftCommandJob.runCommand(executor, cronId, cronId, command);
+                history.record(cronId, fireMillis, startMillis, (clock.nanos() - start) / 1_000L, success, executor.getLastResult());
+            };
+        }
+        dispatcher.submit(cronId, priority, cost, misfire, live != null ? live.group : null, delayTicks, task);
+    }
+
+    // Next fires of the scheduled crons, starting now (offsets included)
+    public FireForecast forecast() {
+        FireForecast forecast = new FireForecast(clock.millis());
+        QuartzConfig current = config;
+        if (current == null) return forecast;
+        for (LiveCron live : liveCrons.values()) {
+            QuartzConfig.CronEntry entry = current.getCronById(live.id);
+            if (entry == null) continue;
+            ClusterEngine cluster = this.cluster;
+            long next = cluster != null && cluster.isScheduled(live.id) ? cluster.getNextFireMillis(live.id) : engine.getNextFireMillis(live.id);
+            forecast.add(live.id, entry.schedule, next, live.offsetTicks * Schedules.MILLIS_PER_TICK);
+        }
+        return forecast;
+    }
+
+    public QuartzConfig getConfig() {
+        return config;
+    }
+
+    public CronDispatcher getDispatcher() {
+        return dispatcher;
+    }
+
+    public LoadGovernor getGovernor() {
+        return governor;
+    }
+
+    public CircuitBreaker getBreaker() {
+        return breaker;
+    }
+
+    public ExecutionHistory getHistory() {
+        return history;
+    }
+
+    // Null unless clustering is enabled
+    public ClusterEngine getCluster() {
+        return cluster;
+    }
+
+    // Deletes from the shared database the cluster crons this node's config no longer has (any state), for
+    // every node. Meant to be run once all nodes have the new config. Returns -1 when clustering is not running.
+    public int pruneCluster() {
+        ClusterEngine current = cluster;
+        QuartzConfig config = this.config;
+        if (current == null || config == null) return -1;
+        List<String> ids = new ArrayList<>();
+        for (QuartzConfig.CronEntry entry : config.crons) {
+            if (entry != null && entry.id != null && entry.isClusterScoped()) ids.add(entry.id);
+        }
+        return current.prune(ids);
+    }
+
+    private void dumpHistoryOnShutdown() {
+        QuartzConfig current = config;
+        if (current == null || current.history == null || current.history.dumpOnShutdown == null || history.size() == 0) return;
+        String format = current.history.dumpOnShutdown.trim().toLowerCase();
+        if (!format.equals("csv") && !format.equals("binary")) return;
+        try {
+            history.dump(current.history.dumpFile, format.equals("binary"));
+        } catch (Exception e) {
+            LOGGER.error("[QuartzManager] Failed to write execution history: {}", e.getMessage(), e);
+        }
+    }
+
+    public CronMetrics getMetrics() {
+        return metrics;
+    }
+
+    public CommandParseCache getParseCache() {
+        return parseCache;
     }
 
     public QuartzManagerStats getStats() {
-        Map<String, String> keys = new ConcurrentHashMap<>();
-        scheduledJobs.forEach((id, key) -> keys.put(id, key.toString()));
-        return new QuartzManagerStats(isRunning, scheduledJobs.size(), keys);
+        CronEngine current = engine;
+        Map<String, String> scheduled = current.describe();
+        scheduled.putAll(events.describe());
+        ClusterEngine cluster = this.cluster;
+        if (cluster != null) scheduled.putAll(cluster.describe());
+        return new QuartzManagerStats(isRunning, current.getName(), getScheduledCount(), scheduled);
     }
 
     public static class MinecraftCommandJob implements Job {
         private static final Logger LOGGER = LoggerFactory.getLogger("quartz4mc-job");
-        private static final Map<String, Integer> failureCounts = new ConcurrentHashMap<>();
-        private static final int MAX_FAILURES = 5;
 
         @Override
         public void execute(JobExecutionContext context) {
             JobDataMap data = context.getJobDetail().getJobDataMap();
-            String command = data.getString("command");
+            Date scheduled = context.getScheduledFireTime();
+            long scheduledMillis = scheduled != null ? scheduled.getTime() : 0L;
             String cronId = data.getString("cronId");
-            MinecraftServer server = QuartzManager.getInstance().server;
-
-            if (server == null) {
-                LOGGER.error("[QuartzJob] Server null for cron '{}'", cronId);
+            if (cronId == null) {
+                // Shared job: the trigger name is the cron id
+                QuartzManager.getInstance().fire(context.getTrigger().getKey().getName(), scheduledMillis);
                 return;
             }
+            String command = data.getString("command");
+            int priority = data.containsKey("priority") ? data.getInt("priority") : 0;
+            QuartzManager.getInstance().fire(cronId, command, priority, scheduledMillis);
+        }
+
+        // Runs on the server thread, from CronDispatcher.tick(). commandKey identifies the command in the
+        // parse cache (the cron id, or one step of a pipeline). Returns whether the command succeeded.
+        // A command that runs but reports failure (Brigadier errors during execution) fails the run too.
+        static boolean runCommand(CommandExecutor executor, String cronId, String commandKey, String command) {
+            boolean successful;
+            try {
+                successful = executor.execute(commandKey, command);
+            } catch (Exception e) {
+                recordFailure(cronId, e);
+                return false;
+            }
+            LOGGER.debug("[QuartzJob] Executed cron '{}'", cronId);
+            if (successful) recordSuccess(cronId);
+            else recordFailure(cronId, "command reported failure");
+            return successful;
+        }
+
+        // Runs one pipeline step. The breaker is left alone: the pipeline records one result per run.
+        static boolean runStep(CommandExecutor executor, String cronId, String commandKey, String command) {
+            try {
+                return executor.execute(commandKey, command);
+            } catch (Exception e) {
+                LOGGER.error("[QuartzJob] Failed cron '{}' ({}): {}", cronId, commandKey, e.getMessage(), e);
+                return false;
+            }
+        }
+
+        static void recordSuccess(String cronId) {
+            QuartzManager.getInstance().breaker.onSuccess(cronId);
+        }
+
+        // One failed run of the cron. Enough of them in a row open its circuit breaker.
+        static void recordFailure(String cronId, Exception e) {
+            CircuitBreaker breaker = QuartzManager.getInstance().breaker;
+            breaker.onFailure(cronId, QuartzManager.getInstance().clock.millis());
+            LOGGER.error("[QuartzJob] Failed cron '{}': {} (failure {}/{})", cronId, e.getMessage(),
+                    breaker.getFailures(cronId), breaker.getFailureThreshold(), e);
+        }
+
+        static void recordFailure(String cronId, String reason) {
+            CircuitBreaker breaker = QuartzManager.getInstance().breaker;
+            breaker.onFailure(cronId, QuartzManager.getInstance().clock.millis());
+            LOGGER.warn("[QuartzJob] Failed cron '{}': {} (failure {}/{})", cronId, reason,
+                    breaker.getFailures(cronId), breaker.getFailureThreshold());
+        }
+    }
+
+    private static final class LiveCron {
+        final String id;
+        final String uuid;
+        final String fingerprint;
+        final CostClass cost;
+        final MisfirePolicy misfire;
+        final long offsetTicks;
+        final CommandPipeline pipeline; // Null for single-command crons
+        final String fanOut; // Target selector of a fan-out cron, else null
+        final int fanOutSlice;
+        final String group;
+
+        LiveCron(QuartzConfig.CronEntry entry) {
+            this.id = entry.id;
+            this.uuid = entry.uuid;
+            this.fingerprint = entry.fingerprint();
+            this.cost = CostClass.parse(entry.cost);
+            this.misfire = MisfirePolicy.parse(entry.misfire);
+            this.offsetTicks = Schedules.offsetSeconds(entry) * Schedules.TICKS_PER_SECOND;
+            this.pipeline = CommandPipeline.of(entry);
+            this.fanOut = entry.fanOut != null && !entry.fanOut.isBlank() ? entry.fanOut.trim() : null;
+            this.fanOutSlice = entry.fanOutSlice;
+            this.group = entry.group;
+        }
+    }
 
-            server.execute(() -> {
-                try {
-                    server.getCommandManager().executeWithPrefix(server.getCommandSource(), command);
-                    LOGGER.debug("[QuartzJob] Executed cron '{}'", cronId);
-                    failureCounts.put(cronId, 0); // reset après succès
-                } catch (Exception e) {
-                    int failures = failureCounts.compute(cronId, (k, v) -> v == null ? 1 : v + 1);
-                    LOGGER.error("[QuartzJob] Failed cron '{}': {} (failure {}/{})", cronId, e.getMessage(), failures, MAX_FAILURES, e);
+    public static class ReloadResult {
+        public final int added;
+        public final int updated;
+        public final int removed;
+        public final int unchanged;
+        public final int failed;
+        public final int scheduled;
 
-                    if (failures >= MAX_FAILURES) {
-                        QuartzConfig config = Quartz4MC.getInstance().getConfig();
-                        QuartzConfig.CronEntry entry = config.getCronById(cronId);
-                        if (entry != null) {
-                            entry.enabled = false;
-                            config.saveAsync(); // async persistance
-                            QuartzManager.getInstance().stopCron(cronId);
-                            LOGGER.warn("[QuartzJob] Cron '{}' disabled after {} consecutive failures", cronId, MAX_FAILURES);
-                        }
-                    }
-                }
-            });
+        public ReloadResult(int added, int updated, int removed, int unchanged, int failed, int scheduled) {
+            this.added = added;
+            this.updated = updated;
+            this.removed = removed;
+            this.unchanged = unchanged;
+            this.failed = failed;
+            this.scheduled = scheduled;
         }
     }
 
     public static class QuartzManagerStats {
         public final boolean isRunning;
+        public final String engine;
         public final int scheduledCronsCount;
         public final Map<String, String> scheduledCrons;
 
-        public QuartzManagerStats(boolean running, int count, Map<String, String> map) {
+        public QuartzManagerStats(boolean running, String engine, int count, Map<String, String> map) {
             this.isRunning = running;
+            this.engine = engine;
             this.scheduledCronsCount = count;
             this.scheduledCrons = map;
         }
@@ -0,0 +1,389 @@
+package com.captainziboo.quartz4mc.manager;
+
+import com.captainziboo.quartz4mc.config.QuartzConfig;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+// Replays a configuration on a virtual clock, without a Minecraft server: the tick engine, dispatcher
+// and governor run unchanged, and commands are replaced by a stub that only advances the clock by a
+// configured cost. A tick that overruns 50 ms delays the next one, as on a lagging server.
+// Reports fires per tick, the worst ticks and the dispatch queue depth over time.
+//
+//   ./gradlew simulate -Psim="--config config/quartz4mc.json --duration 7d --cost function=2000 --cost say=20"
+public final class ScheduleSimulator {
+    private static final long TICK_NANOS = Schedules.MILLIS_PER_TICK * 1_000_000L;
+    private static final int MAX_FIRES_BUCKET = 32; // Ticks with more fires share the last bucket
+    private static final int WORST_TICKS = 5;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneOffset.UTC);
+
+    private ScheduleSimulator() {}
+
+    public static class Settings {
+        public long durationMillis = 86_400_000L;
+        public long startMillis = LocalDate.now(ZoneOffset.UTC).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        public long bucketMillis = 3_600_000L; // Timeline resolution
+        public long defaultCostMicros = 100L; // Server thread time of a command without a matching cost
+        public Map<String, Long> costMicros = new LinkedHashMap<>(); // Command prefix -> cost, longest prefix wins
+        public List<String> failing = new ArrayList<>(); // Commands starting with one of these throw
+        public long serverTickMicros = 0L; // Rest of every tick (world ticking), counts towards the governor's MSPT
+        public int players = 20; // Fan-out targets and player count for event triggers
+    }
+
+    // Runs the configuration (engine forced to "tick", exporters and clustering off) through the
+    // manager singleton, which must not be serving a Minecraft server at the same time
+    public static Report run(QuartzConfig config, Settings settings) {
+        Report report = new Report(settings);
+        long wallStart = System.nanoTime();
+
+        try (Simulation simulation = new Simulation(settings)) {
+            QuartzManager.ReloadResult loaded = simulation.load(config);
+            report.scheduled = loaded.scheduled;
+            report.failedToSchedule = loaded.failed;
+            simulation.manager.onServerStarted(settings.players);
+
+            CronDispatcher dispatcher = simulation.manager.getDispatcher();
+            CronDispatcher.DispatcherStats before = dispatcher.getStats();
+            simulation.runUntil(settings.durationMillis * 1_000_000L, report);
+
+            CronDispatcher.DispatcherStats after = dispatcher.getStats();
+            report.deferred = after.totalDeferred - before.totalDeferred;
+            report.throttled = after.totalThrottled - before.totalThrottled;
+            report.shed = after.totalShed - before.totalShed;
+            report.coalesced = after.totalCoalesced - before.totalCoalesced;
+            report.failures = simulation.executor.failures;
+        }
+        report.wallNanos = System.nanoTime() - wallStart;
+        return report;
+    }
+
+    // The manager singleton on a virtual clock and the stub executor, advanced tick by tick. run() plays one
+    // configuration to the end; tests reload or start crons between two advances. Closing it shuts the manager down.
+    static final class Simulation implements AutoCloseable {
+        final VirtualClock clock;
+        final SimulatedExecutor executor;
+        final QuartzManager manager = QuartzManager.getInstance();
+        private long tick = 0L;
+
+        Simulation(Settings settings) {
+            this.clock = new VirtualClock(settings.startMillis);
+            this.executor = new SimulatedExecutor(clock, settings);
+            manager.useClock(clock);
+            manager.initialize(null, executor);
+        }
+
+        QuartzManager.ReloadResult load(QuartzConfig config) {
+            config.engine = TickEngine.NAME;
+            config.cluster.enabled = false;
+            config.history.dumpOnShutdown = "";
+            if (config.metrics != null) {
+                config.metrics.prometheusFile = "";
+                config.metrics.httpPort = 0;
+            }
+            return manager.reload(config);
+        }
+
+        // Runs server ticks for that much virtual time
+        void advance(long millis) {
+            runUntil(clock.nanos() + millis * 1_000_000L, null);
+        }
+
+        // Runs server ticks until the virtual clock reaches endNanos, recording them in the report if there is one
+        void runUntil(long endNanos, Report report) {
+            CronDispatcher dispatcher = manager.getDispatcher();
+            for (; ; tick++) {
+                long tickStart = Math.max(tick * TICK_NANOS, clock.nanos());
+                if (tickStart >= endNanos) break;
+                clock.setNanos(tickStart);
+                manager.tick();
+                CronDispatcher.DispatcherStats stats = dispatcher.getStats();
+                clock.advance(executor.settings.serverTickMicros * 1_000L);
+                manager.tickEnd();
+                if (report != null) {
+                    report.recordTick(tick, clock.millisAt(tickStart), stats.lastTickExecuted, stats.lastTickNanos,
+                            pendingFires(dispatcher, stats), clock.nanos() - tickStart);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            manager.shutdown();
+            manager.useClock(CronClock.SYSTEM);
+        }
+    }
+
+    // Fires waiting for the server thread: the dispatch queue and the concurrency group queues
+    private static int pendingFires(CronDispatcher dispatcher, CronDispatcher.DispatcherStats stats) {
+        int pending = stats.queueDepth;
+        if (dispatcher.hasGroups()) {
+            for (ConcurrencyGroup.GroupStats group : dispatcher.getGroupStats()) pending += group.queueDepth;
+        }
+        return pending;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Settings settings = new Settings();
+        Path configFile = Path.of("config/quartz4mc.json");
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--config": configFile = Path.of(required(args[i], value)); i++; break;
+                case "--duration": settings.durationMillis = parseDuration(required(args[i], value)); i++; break;
+                case "--start": settings.startMillis = Instant.parse(required(args[i], value)).toEpochMilli(); i++; break;
+                case "--bucket": settings.bucketMillis = parseDuration(required(args[i], value)); i++; break;
+                case "--default-cost": settings.defaultCostMicros = Long.parseLong(required(args[i], value)); i++; break;
+                case "--server-tick": settings.serverTickMicros = Long.parseLong(required(args[i], value)); i++; break;
+                case "--players": settings.players = Integer.parseInt(required(args[i], value)); i++; break;
+                case "--fail": settings.failing.add(required(args[i], value)); i++; break;
+                case "--cost": {
+                    String cost = required(args[i], value);
+                    int split = cost.lastIndexOf('=');
+                    if (split <= 0) throw new IllegalArgumentException("--cost expects <command prefix>=<micros>, got '" + cost + "'");
+                    settings.costMicros.put(cost.substring(0, split), Long.parseLong(cost.substring(split + 1)));
+                    i++;
+                    break;
+                }
+                default: throw new IllegalArgumentException("Unknown option '" + args[i] + "'");
+            }
+        }
+
+        QuartzConfig config = QuartzConfig.read(configFile);
+        run(config, settings).print(System.out);
+    }
+
+    private static String required(String option, String value) {
+        if (value == null) throw new IllegalArgumentException(option + " expects a value");
+        return value;
+    }
+
+    // "90s", "30m", "12h", "7d" (or plain milliseconds)
+    static long parseDuration(String text) {
+        char unit = Character.toLowerCase(text.charAt(text.length() - 1));
+        if (Character.isDigit(unit)) return Long.parseLong(text);
+        long amount = Long.parseLong(text.substring(0, text.length() - 1));
+        switch (unit) {
+            case 's': return amount * 1_000L;
+            case 'm': return amount * 60_000L;
+            case 'h': return amount * 3_600_000L;
+            case 'd': return amount * 86_400_000L;
+            default: throw new IllegalArgumentException("Unknown duration unit in '" + text + "'");
+        }
+    }
+
+    static final class VirtualClock implements CronClock {
+        private final long startMillis;
+        private volatile long nanos = 0L;
+
+        VirtualClock(long startMillis) {
+            this.startMillis = startMillis;
+        }
+
+        @Override
+        public long millis() {
+            return millisAt(nanos);
+        }
+
+        @Override
+        public long nanos() {
+            return nanos;
+        }
+
+        long millisAt(long nanos) {
+            return startMillis + nanos / 1_000_000L;
+        }
+
+        void setNanos(long nanos) {
+            this.nanos = nanos;
+        }
+
+        void advance(long deltaNanos) {
+            nanos += deltaNanos;
+        }
+    }
+
+    // Commands cost their configured server thread time and do nothing else
+    static final class SimulatedExecutor implements CommandExecutor {
+        private final VirtualClock clock;
+        private final Settings settings;
+        private final List<FanOutTarget> targets;
+        private final Map<String, Long> runs = new HashMap<>(); // By command, failed runs included
+        long failures = 0L;
+
+        SimulatedExecutor(VirtualClock clock, Settings settings) {
+            this.clock = clock;
+            this.settings = settings;
+            FanOutTarget player = () -> false; // Online for the whole fan-out
+            this.targets = Collections.nCopies(Math.max(0, settings.players), player);
+        }
+
+        @Override
+        public boolean execute(String cronId, String command) throws Exception {
+            clock.advance(costMicros(command) * 1_000L);
+            runs.merge(command, 1L, Long::sum);
+            for (String prefix : settings.failing) {
+                if (command.startsWith(prefix)) {
+                    failures++;
+                    throw new IllegalStateException("Simulated failure");
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public List<? extends FanOutTarget> resolveTargets(String selector) {
+            return targets;
+        }
+
+        @Override
+        public boolean executeAs(String cronId, String command, FanOutTarget target) throws Exception {
+            return execute(cronId, command);
+        }
+
+        long runs(String command) {
+            return runs.getOrDefault(command, 0L);
+        }
+
+        private long costMicros(String command) {
+            long cost = settings.defaultCostMicros;
+            int matched = -1;
+            for (Map.Entry<String, Long> entry : settings.costMicros.entrySet()) {
+                if (entry.getKey().length() > matched && command.startsWith(entry.getKey())) {
+                    matched = entry.getKey().length();
+                    cost = entry.getValue();
+                }
+            }
+            return cost;
+        }
+    }
+
+    public static class Report {
+        private final Settings settings;
+        private final long[] firesPerTick = new long[MAX_FIRES_BUCKET + 1];
+        private final PriorityQueue<TickSample> worst = new PriorityQueue<>((a, b) -> Long.compare(a.cronNanos, b.cronNanos));
+        private final List<Bucket> timeline = new ArrayList<>();
+        public long ticks;
+        public long fires;
+        public int maxFiresInTick;
+        public int peakPendingFires;
+        public long ticksOverrun; // Longer than 50 ms: the next tick started late
+        public int scheduled;
+        public int failedToSchedule;
+        public long deferred;
+        public long throttled;
+        public long shed;
+        public long coalesced;
+        public long failures;
+        public long wallNanos;
+
+        Report(Settings settings) {
+            this.settings = settings;
+        }
+
+        void recordTick(long tick, long millis, int executed, long cronNanos, int pending, long tickNanos) {
+            ticks++;
+            fires += executed;
+            firesPerTick[Math.min(executed, MAX_FIRES_BUCKET)]++;
+            if (executed > maxFiresInTick) maxFiresInTick = executed;
+            if (pending > peakPendingFires) peakPendingFires = pending;
+            if (tickNanos > TICK_NANOS) ticksOverrun++;
+
+            if (executed > 0 && (worst.size() < WORST_TICKS || cronNanos > worst.peek().cronNanos)) {
+                worst.add(new TickSample(tick, millis, executed, cronNanos, pending));
+                if (worst.size() > WORST_TICKS) worst.poll();
+            }
+
+            int index = (int) ((millis - settings.startMillis) / Math.max(1L, settings.bucketMillis));
+            while (timeline.size() <= index) timeline.add(new Bucket(settings.startMillis + timeline.size() * settings.bucketMillis));
+            Bucket bucket = timeline.get(index);
+            bucket.fires += executed;
+            bucket.worstCronNanos = Math.max(bucket.worstCronNanos, cronNanos);
+            bucket.peakPending = Math.max(bucket.peakPending, pending);
+            if (tickNanos > TICK_NANOS) bucket.ticksOverrun++;
+        }
+
+        public List<TickSample> getWorstTicks() {
+            List<TickSample> samples = new ArrayList<>(worst);
+            samples.sort((a, b) -> Long.compare(b.cronNanos, a.cronNanos));
+            return samples;
+        }
+
+        public List<Bucket> getTimeline() {
+            return timeline;
+        }
+
+        public void print(PrintStream out) {
+            out.printf("Simulated %s (%d ticks) from %s UTC in %.1f s%n", formatDuration(settings.durationMillis), ticks,
+                    TIME_FORMAT.format(Instant.ofEpochMilli(settings.startMillis)), wallNanos / 1e9);
+            out.printf("Crons: %d scheduled, %d failed to schedule%n", scheduled, failedToSchedule);
+            out.printf("Fires: %d run (%.3f per tick, max %d in one tick), %d failed%n", fires, ticks == 0 ? 0.0 : fires / (double) ticks, maxFiresInTick, failures);
+            out.printf("Dispatcher: %d deferred to a later tick, %d held back by the governor, %d shed, %d coalesced%n", deferred, throttled, shed, coalesced);
+            out.printf("Queue: peak %d pending fire(s) | %d tick(s) overran 50 ms%n", peakPendingFires, ticksOverrun);
+
+            out.println("Fires per tick:");
+            for (int i = 0; i <= MAX_FIRES_BUCKET; i++) {
+                if (firesPerTick[i] == 0) continue;
+                out.printf("  %s%d: %d tick(s)%n", i == MAX_FIRES_BUCKET ? ">=" : "", i, firesPerTick[i]);
+            }
+
+            out.println("Worst ticks (server thread time spent on crons):");
+            for (TickSample sample : getWorstTicks()) {
+                out.printf("  tick %d at %s: %.2f ms, %d fire(s), %d pending%n", sample.tick,
+                        TIME_FORMAT.format(Instant.ofEpochMilli(sample.millis)), sample.cronNanos / 1e6, sample.fires, sample.pending);
+            }
+
+            out.printf("Timeline (per %s):%n", formatDuration(settings.bucketMillis));
+            for (Bucket bucket : timeline) {
+                out.printf("  %s  %8d fire(s) | worst tick %7.2f ms | peak queue %5d | %d overrun(s)%n",
+                        TIME_FORMAT.format(Instant.ofEpochMilli(bucket.startMillis)), bucket.fires,
+                        bucket.worstCronNanos / 1e6, bucket.peakPending, bucket.ticksOverrun);
+            }
+        }
+
+        private static String formatDuration(long millis) {
+            if (millis % 86_400_000L == 0) return (millis / 86_400_000L) + "d";
+            if (millis % 3_600_000L == 0) return (millis / 3_600_000L) + "h";
+            if (millis % 60_000L == 0) return (millis / 60_000L) + "m";
+            return (millis / 1_000L) + "s";
+        }
+    }
+
+    public static class TickSample {
+        public final long tick;
+        public final long millis;
+        public final int fires;
+        public final long cronNanos;
+        public final int pending;
+
+        public TickSample(long tick, long millis, int fires, long cronNanos, int pending) {
+            this.tick = tick;
+            this.millis = millis;
+            this.fires = fires;
+            this.cronNanos = cronNanos;
+            this.pending = pending;
+        }
+    }
+
+    public static class Bucket {
+        public final long startMillis;
+        public long fires;
+        public long worstCronNanos;
+        public int peakPending;
+        public int ticksOverrun;
+
+        public Bucket(long startMillis) {
+            this.startMillis = startMillis;
+        }
+    }
+}
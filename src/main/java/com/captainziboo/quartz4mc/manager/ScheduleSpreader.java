@@ -0,0 +1,142 @@
+package com.captainziboo.quartz4mc.manager;
+
+import com.captainziboo.quartz4mc.config.QuartzConfig;
+import org.quartz.CronExpression;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Builds a per-second fire histogram of the enabled crons over one hour (fire times folded onto
+// second-of-hour, so hourly and daily crons land on the same seconds as the minute ones) and
+// greedily picks an offset per cron within a window that flattens it. Most frequent crons are
+// placed first; each takes the offset whose busiest second is the least busy.
+public final class ScheduleSpreader {
+    static final int CYCLE_SECONDS = 3600;
+
+    private ScheduleSpreader() {}
+
+    public static SpreadPlan plan(List<QuartzConfig.CronEntry> crons, int windowSeconds, long fromMillis) {
+        int window = Math.max(1, Math.min(CYCLE_SECONDS, windowSeconds));
+        List<CronSeconds> analysed = new ArrayList<>();
+        int[] before = new int[CYCLE_SECONDS];
+
+        for (QuartzConfig.CronEntry entry : crons) {
+            if (entry == null || !entry.enabled || entry.id == null) continue;
+            int[] seconds = fireSeconds(entry.schedule, fromMillis);
+            if (seconds.length == 0) continue;
+            int current = Schedules.offsetSeconds(entry);
+            for (int second : seconds) before[(second + current) % CYCLE_SECONDS]++;
+            analysed.add(new CronSeconds(entry, seconds, current));
+        }
+
+        analysed.sort(Comparator.comparingInt((CronSeconds c) -> c.seconds.length).reversed().thenComparing(c -> c.entry.id));
+        int[] after = new int[CYCLE_SECONDS];
+        Map<String, Integer> offsets = new LinkedHashMap<>();
+        int moved = 0;
+
+        for (CronSeconds cron : analysed) {
+            int bestOffset = 0;
+            int bestPeak = Integer.MAX_VALUE;
+            for (int offset = 0; offset < window && bestPeak > 0; offset++) {
+                int peak = 0;
+                for (int second : cron.seconds) {
+                    int count = after[(second + offset) % CYCLE_SECONDS];
+                    if (count > peak && (peak = count) >= bestPeak) break;
+                }
+                if (peak < bestPeak) {
+                    bestPeak = peak;
+                    bestOffset = offset;
+                }
+            }
+            for (int second : cron.seconds) after[(second + bestOffset) % CYCLE_SECONDS]++;
+            offsets.put(cron.entry.id, bestOffset);
+            if (bestOffset != cron.currentOffset) moved++;
+        }
+
+        return new SpreadPlan(window, analysed.size(), moved, peak(before), peak(after), offsets);
+    }
+
+    // Distinct seconds-of-hour the schedule fires on during the next hour (or its next fire, if rarer)
+    static int[] fireSeconds(String schedule, long fromMillis) {
+        boolean[] hit = new boolean[CYCLE_SECONDS];
+        int count = 0;
+        long end = fromMillis + CYCLE_SECONDS * 1_000L;
+        try {
+            if (Schedules.isTickInterval(schedule)) {
+                long interval = Schedules.parseTickInterval(schedule) * Schedules.MILLIS_PER_TICK;
+                for (long t = fromMillis + interval; t < end && count < CYCLE_SECONDS; t += interval) {
+                    int second = secondOfHour(t);
+                    if (!hit[second]) {
+                        hit[second] = true;
+                        count++;
+                    }
+                }
+            } else {
+                CronExpression expression = Schedules.compile(schedule);
+                Date next = expression.getNextValidTimeAfter(new Date(fromMillis));
+                boolean first = true;
+                while (next != null && (first || next.getTime() < end) && count < CYCLE_SECONDS) {
+                    int second = secondOfHour(next.getTime());
+                    if (!hit[second]) {
+                        hit[second] = true;
+                        count++;
+                    }
+                    first = false;
+                    next = expression.getNextValidTimeAfter(next);
+                }
+            }
+        } catch (Exception e) {
+            return new int[0];
+        }
+
+        int[] seconds = new int[count];
+        for (int i = 0, j = 0; i < CYCLE_SECONDS; i++) {
+            if (hit[i]) seconds[j++] = i;
+        }
+        return seconds;
+    }
+
+    private static int secondOfHour(long millis) {
+        return (int) Math.floorMod(millis / 1_000L, (long) CYCLE_SECONDS);
+    }
+
+    private static int peak(int[] histogram) {
+        int peak = 0;
+        for (int count : histogram) peak = Math.max(peak, count);
+        return peak;
+    }
+
+    private static final class CronSeconds {
+        final QuartzConfig.CronEntry entry;
+        final int[] seconds;
+        final int currentOffset;
+
+        CronSeconds(QuartzConfig.CronEntry entry, int[] seconds, int currentOffset) {
+            this.entry = entry;
+            this.seconds = seconds;
+            this.currentOffset = currentOffset;
+        }
+    }
+
+    public static class SpreadPlan {
+        public final int windowSeconds;
+        public final int analysed;
+        public final int moved;
+        public final int peakBefore;
+        public final int peakAfter;
+        public final Map<String, Integer> offsets; // cron id -> suggested offset in seconds
+
+        public SpreadPlan(int windowSeconds, int analysed, int moved, int peakBefore, int peakAfter, Map<String, Integer> offsets) {
+            this.windowSeconds = windowSeconds;
+            this.analysed = analysed;
+            this.moved = moved;
+            this.peakBefore = peakBefore;
+            this.peakAfter = peakAfter;
+            this.offsets = offsets;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.captainziboo.quartz4mc.manager;
+
+import com.captainziboo.quartz4mc.config.QuartzConfig;
+import org.quartz.CronExpression;
+
+import java.text.ParseException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Schedule strings accepted in CronEntry.schedule:
+//  - a Quartz cron expression ("0 */5 * * * ?")
+//  - a tick interval ("@every 20t", "@every 100 ticks")
+//  - an event ("@on player-join"), see EventTrigger
+public final class Schedules {
+    public static final long MILLIS_PER_TICK = 50L;
+    public static final long TICKS_PER_SECOND = 1_000L / MILLIS_PER_TICK;
+
+    private static final int MAX_COMPILED = 4096;
+    private static final Map<String, CronExpression> COMPILED = new ConcurrentHashMap<>(); // Many crons share a pattern
+
+    private static final Pattern TICK_INTERVAL = Pattern.compile("^@every\\s+(\\d+)\\s*t(?:icks?)?$", Pattern.CASE_INSENSITIVE);
+
+    private Schedules() {}
+
+    public static boolean isTickInterval(String schedule) {
+        return schedule != null && schedule.trim().startsWith("@") && !isEvent(schedule);
+    }
+
+    public static boolean isEvent(String schedule) {
+        return schedule != null && schedule.trim().regionMatches(true, 0, "@on ", 0, 4);
+    }
+
+    public static int parseTickInterval(String schedule) throws ParseException {
+        Matcher matcher = TICK_INTERVAL.matcher(schedule.trim());
+        if (!matcher.matches()) throw new ParseException("Expected '@every <N>t' tick interval", 0);
+        try {
+            int ticks = Integer.parseInt(matcher.group(1));
+            if (ticks <= 0) throw new ParseException("Tick interval must be positive", 0);
+            return ticks;
+        } catch (NumberFormatException e) {
+            throw new ParseException("Tick interval out of range", 0);
+        }
+    }
+
+    // Delay applied to every fire of the cron: the explicit offset, else a stable hash of the uuid within the jitter window
+    public static int offsetSeconds(QuartzConfig.CronEntry entry) {
+        if (entry.offsetSeconds != null) return Math.max(0, entry.offsetSeconds);
+        if (entry.jitterSeconds <= 0 || entry.uuid == null) return 0;
+        long hash = entry.uuid.hashCode() * 0x9E3779B97F4A7C15L; // Spreads uuids that only differ slightly
+        return (int) Math.floorMod(hash >>> 32, (long) entry.jitterSeconds);
+    }
+
+    public static void validate(String schedule) throws ParseException {
+        if (schedule == null) throw new ParseException("Schedule is missing", 0);
+        if (isEvent(schedule)) EventTrigger.parse(schedule);
+        else if (isTickInterval(schedule)) parseTickInterval(schedule);
+        else compile(schedule);
+    }
+
+    // Parsed cron expression, shared by every cron with the same pattern. Callers must not modify it
+    // (Quartz triggers copy the expression they are built with).
+    public static CronExpression compile(String schedule) throws ParseException {
+        CronExpression expression = COMPILED.get(schedule);
+        if (expression != null) return expression;
+
+        expression = new CronExpression(schedule);
+        if (COMPILED.size() >= MAX_COMPILED) COMPILED.clear(); // Patterns typed once and removed since
+        COMPILED.put(schedule, expression);
+        return expression;
+    }
+}
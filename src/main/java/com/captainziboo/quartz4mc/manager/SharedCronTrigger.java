@@ -0,0 +1,36 @@
+package com.captainziboo.quartz4mc.manager;
+
+import org.quartz.CronExpression;
+import org.quartz.impl.triggers.CronTriggerImpl;
+
+// Cron trigger of the shared-job mode. RAMJobStore clones every trigger it stores or hands out, and
+// CronTriggerImpl.clone() parses its expression again: this one keeps sharing the compiled expression
+// from Schedules.compile() (expressions are read-only once built) and never allocates a JobDataMap.
+class SharedCronTrigger extends CronTriggerImpl {
+    private static final long serialVersionUID = 1L;
+
+    private CronExpression expression;
+
+    void setSharedExpression(CronExpression expression) {
+        this.expression = expression;
+        setCronExpression(expression);
+    }
+
+    @Override
+    public Object clone() {
+        SharedCronTrigger copy = new SharedCronTrigger();
+        copy.setKey(getKey());
+        copy.setJobKey(getJobKey());
+        copy.setDescription(getDescription());
+        copy.setCalendarName(getCalendarName());
+        copy.setPriority(getPriority());
+        copy.setMisfireInstruction(getMisfireInstruction());
+        copy.setSharedExpression(expression);
+        copy.setStartTime(getStartTime());
+        copy.setEndTime(getEndTime());
+        copy.setNextFireTime(getNextFireTime());
+        copy.setPreviousFireTime(getPreviousFireTime());
+        copy.setFireInstanceId(getFireInstanceId());
+        return copy;
+    }
+}
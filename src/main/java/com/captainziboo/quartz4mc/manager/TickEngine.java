@@ -0,0 +1,189 @@
+package com.captainziboo.quartz4mc.manager;
+
+import com.captainziboo.quartz4mc.config.QuartzConfig;
+import org.quartz.CronExpression;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Thread-less engine: next fire times are computed from the same cron expressions and kept in a
+// hashed timing wheel advanced from the server tick loop, so fires need no cross-thread handoff.
+class TickEngine implements CronEngine {
+    private static final Logger LOGGER = LoggerFactory.getLogger("quartz4mc-engine");
+    static final String NAME = "tick";
+    private static final int WHEEL_SLOTS = 1024; // ~51 s per revolution
+
+    private final QuartzManager manager;
+    private final TimingWheel<ScheduledCron> wheel = new TimingWheel<>(WHEEL_SLOTS, 0L);
+    private final Map<String, ScheduledCron> crons = new HashMap<>();
+    private long currentTick = 0L;
+    private volatile long misfireThresholdMillis = 60_000L;
+    private volatile boolean running = false;
+
+    TickEngine(QuartzManager manager, QuartzConfig.SchedulerSettings settings) {
+        this.manager = manager;
+        configure(settings);
+    }
+
+    void configure(QuartzConfig.SchedulerSettings settings) {
+        if (settings != null) this.misfireThresholdMillis = Math.max(0L, settings.misfireThresholdMillis);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean start() {
+        running = true;
+        LOGGER.debug("[TickEngine] Tick engine started");
+        return true;
+    }
+
+    @Override
+    public synchronized void shutdown(long timeoutMillis) {
+        running = false;
+        wheel.clear();
+        crons.clear();
+        LOGGER.debug("[TickEngine] Tick engine stopped");
+    }
+
+    @Override
+    public synchronized void tick() {
+        if (!running) return;
+        currentTick++;
+        wheel.advanceTo(currentTick, this::onExpired);
+    }
+
+    private void onExpired(ScheduledCron cron) {
+        long now = manager.clock().millis();
+        if (cron.expression != null && now < cron.nextFireMillis) {
+            // The server caught up on lag faster than wall-clock time: wait for the real fire time
+            cron.node = wheel.schedule(currentTick + ticksUntil(now, cron.nextFireMillis), cron);
+            return;
+        }
+
+        if (cron.expression != null && now - cron.nextFireMillis > misfireThresholdMillis) {
+            // Misfired (the server was stalled or the clock jumped): apply the cron's policy
+            switch (cron.misfire) {
+                case SKIP:
+                    LOGGER.debug("[TickEngine] Cron '{}' misfired by {} ms, skipped", cron.id, now - cron.nextFireMillis);
+                    arm(cron, now);
+                    return;
+                case FIRE_NOW:
+                    // Missed fires are replayed one per tick until the cron has caught up
+                    manager.fire(cron.id, cron.command, cron.priority, cron.nextFireMillis);
+                    arm(cron, cron.nextFireMillis);
+                    return;
+                default:
+                    break;
+            }
+        }
+
+        manager.fire(cron.id, cron.command, cron.priority, cron.expression != null ? cron.nextFireMillis : now);
+        arm(cron, Math.max(now, cron.nextFireMillis));
+    }
+
+    @Override
+    public synchronized void schedule(QuartzConfig.CronEntry entry) throws Exception {
+        ScheduledCron cron = new ScheduledCron(entry.id, entry.command, entry.priority, MisfirePolicy.parse(entry.misfire));
+        if (Schedules.isTickInterval(entry.schedule)) {
+            cron.intervalTicks = Schedules.parseTickInterval(entry.schedule);
+        } else {
+            cron.expression = Schedules.compile(entry.schedule);
+        }
+
+        unschedule(entry.id);
+        if (!arm(cron, manager.clock().millis())) {
+            throw new IllegalArgumentException("Schedule '" + entry.schedule + "' will never fire");
+        }
+        crons.put(entry.id, cron);
+    }
+
+    @Override
+    public synchronized void applyBatch(List<String> removedIds, List<QuartzConfig.CronEntry> added) {
+        CronEngine.super.applyBatch(removedIds, added);
+    }
+
+    // Inserts the cron at its next fire time. Returns false if the expression has no future fire time.
+    private boolean arm(ScheduledCron cron, long fromMillis) {
+        if (cron.expression == null) {
+            cron.node = wheel.schedule(currentTick + cron.intervalTicks, cron);
+            return true;
+        }
+
+        Date next = cron.expression.getNextValidTimeAfter(new Date(fromMillis));
+        if (next == null) {
+            crons.remove(cron.id);
+            cron.node = null;
+            LOGGER.debug("[TickEngine] Cron '{}' has no future fire time", cron.id);
+            return false;
+        }
+
+        cron.nextFireMillis = next.getTime();
+        cron.node = wheel.schedule(currentTick + ticksUntil(manager.clock().millis(), cron.nextFireMillis), cron);
+        return true;
+    }
+
+    private static long ticksUntil(long now, long target) {
+        long delay = Math.max(0L, target - now);
+        return Math.max(1L, (delay + Schedules.MILLIS_PER_TICK - 1) / Schedules.MILLIS_PER_TICK);
+    }
+
+    @Override
+    public synchronized boolean unschedule(String id) {
+        ScheduledCron cron = crons.remove(id);
+        if (cron == null) return false;
+        wheel.cancel(cron.node);
+        cron.node = null;
+        return true;
+    }
+
+    @Override
+    public synchronized boolean isScheduled(String id) {
+        return crons.containsKey(id);
+    }
+
+    @Override
+    public synchronized long getNextFireMillis(String id) {
+        ScheduledCron cron = crons.get(id);
+        if (cron == null || cron.node == null) return -1L;
+        if (cron.expression != null) return cron.nextFireMillis;
+        return manager.clock().millis() + (cron.node.deadline - currentTick) * Schedules.MILLIS_PER_TICK;
+    }
+
+    @Override
+    public synchronized int getScheduledCount() {
+        return crons.size();
+    }
+
+    @Override
+    public synchronized Map<String, String> describe() {
+        Map<String, String> keys = new HashMap<>();
+        crons.forEach((id, cron) -> keys.put(id, "tick:" + (cron.node != null ? cron.node.deadline : -1)));
+        return keys;
+    }
+
+    private static final class ScheduledCron {
+        final String id;
+        final String command;
+        final int priority;
+        final MisfirePolicy misfire;
+        CronExpression expression;
+        int intervalTicks;
+        long nextFireMillis;
+        TimingWheel.Node<ScheduledCron> node;
+
+        ScheduledCron(String id, String command, int priority, MisfirePolicy misfire) {
+            this.id = id;
+            this.command = command;
+            this.priority = priority;
+            this.misfire = misfire;
+        }
+    }
+}
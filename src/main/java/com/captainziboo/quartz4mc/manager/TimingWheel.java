@@ -0,0 +1,121 @@
+package com.captainziboo.quartz4mc.manager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Hashed timing wheel indexed by tick number. Insertion and cancellation are O(1); advancing one tick
+// only visits the entries hashed to that slot. Entries further than one revolution away stay in their
+// slot until their deadline comes around. Not thread-safe: callers synchronize.
+final class TimingWheel<T> {
+    private final Node<T>[] slots;
+    private final int mask;
+    private final List<Node<T>> expired = new ArrayList<>();
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    TimingWheel(int slotCount, long startTick) {
+        int capacity = Integer.highestOneBit(Math.max(2, slotCount - 1)) << 1;
+        this.slots = new Node[capacity];
+        this.mask = capacity - 1;
+        this.currentTick = startTick;
+    }
+
+    Node<T> schedule(long deadlineTick, T payload) {
+        Node<T> node = new Node<>(Math.max(deadlineTick, currentTick + 1), payload);
+        int index = (int) (node.deadline & mask);
+        node.next = slots[index];
+        if (node.next != null) node.next.prev = node;
+        slots[index] = node;
+        node.linked = true;
+        size++;
+        return node;
+    }
+
+    void cancel(Node<T> node) {
+        if (node == null) return;
+        node.cancelled = true;
+        unlink(node);
+    }
+
+    // Advances the wheel to the given tick and hands every expired payload to the consumer.
+    // The consumer may schedule or cancel entries.
+    int advanceTo(long tick, Consumer<T> onExpired) {
+        if (tick <= currentTick) return 0;
+
+        long steps = Math.min(tick - currentTick, slots.length);
+        for (long i = 1; i <= steps; i++) {
+            int index = (int) ((currentTick + i) & mask);
+            for (Node<T> node = slots[index]; node != null; ) {
+                Node<T> next = node.next;
+                if (node.deadline <= tick) {
+                    unlink(node);
+                    expired.add(node);
+                }
+                node = next;
+            }
+        }
+        currentTick = tick;
+
+        int fired = 0;
+        for (Node<T> node : expired) {
+            if (node.cancelled) continue;
+            onExpired.accept(node.payload);
+            fired++;
+        }
+        expired.clear();
+        return fired;
+    }
+
+    long getCurrentTick() {
+        return currentTick;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        clear(payload -> {});
+    }
+
+    // Removes every entry, handing the ones not cancelled yet to the consumer
+    void clear(Consumer<T> onRemoved) {
+        for (int i = 0; i < slots.length; i++) {
+            for (Node<T> node = slots[i]; node != null; node = node.next) {
+                if (!node.cancelled) onRemoved.accept(node.payload);
+                node.cancelled = true;
+                node.linked = false;
+            }
+            slots[i] = null;
+        }
+        size = 0;
+    }
+
+    private void unlink(Node<T> node) {
+        if (!node.linked) return;
+        int index = (int) (node.deadline & mask);
+        if (node.prev != null) node.prev.next = node.next;
+        else slots[index] = node.next;
+        if (node.next != null) node.next.prev = node.prev;
+        node.prev = null;
+        node.next = null;
+        node.linked = false;
+        size--;
+    }
+
+    static final class Node<T> {
+        final long deadline;
+        final T payload;
+        Node<T> prev;
+        Node<T> next;
+        boolean linked;
+        boolean cancelled;
+
+        Node(long deadline, T payload) {
+            this.deadline = deadline;
+            this.payload = payload;
+        }
+    }
+}
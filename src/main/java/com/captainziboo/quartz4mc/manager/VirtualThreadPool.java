@@ -0,0 +1,113 @@
+package com.captainziboo.quartz4mc.manager;
+
+import org.quartz.SchedulerConfigException;
+import org.quartz.spi.ThreadPool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ThreadFactory;
+
+// Quartz ThreadPool that starts one virtual thread per job instead of keeping platform workers
+// around. Jobs here only hand the fire over to the dispatcher, so nothing is resident while idle.
+// threadCount still bounds how many jobs run at once (and how many triggers Quartz acquires).
+public class VirtualThreadPool implements ThreadPool {
+    private static final Logger LOGGER = LoggerFactory.getLogger("quartz4mc-thread-pool");
+
+    private final Object lock = new Object();
+    private int threadCount = 4;
+    private int active = 0;
+    private boolean shutdown = false;
+    private String instanceName = "Quartz4MC";
+    private ThreadFactory threadFactory;
+
+    // Set by StdSchedulerFactory from org.quartz.threadPool.threadCount
+    public void setThreadCount(int threadCount) {
+        this.threadCount = threadCount;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    @Override
+    public void initialize() throws SchedulerConfigException {
+        if (threadCount <= 0) throw new SchedulerConfigException("Thread count must be > 0");
+        threadFactory = Thread.ofVirtual().name(instanceName + "_Worker-", 1).factory();
+        LOGGER.debug("[VirtualThreadPool] Initialized with at most {} concurrent job(s)", threadCount);
+    }
+
+    @Override
+    public boolean runInThread(Runnable runnable) {
+        if (runnable == null) return false;
+        synchronized (lock) {
+            while (active >= threadCount && !shutdown) {
+                try {
+                    lock.wait(500);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            if (shutdown) return false;
+            active++;
+        }
+
+        threadFactory.newThread(() -> {
+            try {
+                runnable.run();
+            } finally {
+                synchronized (lock) {
+                    active--;
+                    lock.notifyAll();
+                }
+            }
+        }).start();
+        return true;
+    }
+
+    @Override
+    public int blockForAvailableThreads() {
+        synchronized (lock) {
+            while (active >= threadCount && !shutdown) {
+                try {
+                    lock.wait(500);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            return Math.max(0, threadCount - active);
+        }
+    }
+
+    @Override
+    public void shutdown(boolean waitForJobsToComplete) {
+        synchronized (lock) {
+            shutdown = true;
+            lock.notifyAll();
+            while (waitForJobsToComplete && active > 0) {
+                try {
+                    lock.wait(500);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        LOGGER.debug("[VirtualThreadPool] Shut down");
+    }
+
+    @Override
+    public int getPoolSize() {
+        return threadCount;
+    }
+
+    @Override
+    public void setInstanceId(String instanceId) {
+    }
+
+    @Override
+    public void setInstanceName(String instanceName) {
+        this.instanceName = instanceName;
+    }
+}
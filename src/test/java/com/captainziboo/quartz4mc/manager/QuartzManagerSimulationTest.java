@@ -0,0 +1,93 @@
+package com.captainziboo.quartz4mc.manager;
+
+import com.captainziboo.quartz4mc.config.QuartzConfig;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Drives QuartzManager through ScheduleSimulator: virtual clock, tick engine, stub executor.
+// Every cron fires once per virtual second from midnight, where the simulation starts: the first advance
+// ends half a second past a fire so that every later whole-second advance covers whole fires.
+class QuartzManagerSimulationTest {
+    private static final String EVERY_SECOND = "* * * * * ?";
+
+    @Test
+    void startedCronRunsOnceEverySecond() {
+        try (ScheduleSimulator.Simulation simulation = new ScheduleSimulator.Simulation(new ScheduleSimulator.Settings())) {
+            simulation.load(new QuartzConfig());
+
+            assertTrue(simulation.manager.startCron(entry("a", "say a")));
+            assertTrue(simulation.manager.isCronScheduled("a"));
+            simulation.advance(10_500L);
+            assertEquals(10L, simulation.executor.runs("say a"));
+
+            assertTrue(simulation.manager.stopCron("a"));
+            simulation.advance(10_000L);
+            assertEquals(10L, simulation.executor.runs("say a"));
+        }
+    }
+
+    @Test
+    void reloadOnlyTouchesChangedCrons() {
+        try (ScheduleSimulator.Simulation simulation = new ScheduleSimulator.Simulation(new ScheduleSimulator.Settings())) {
+            QuartzConfig config = new QuartzConfig();
+            QuartzConfig.CronEntry kept = entry("kept", "say kept");
+            QuartzConfig.CronEntry edited = entry("edited", "say edited");
+            QuartzConfig.CronEntry removed = entry("removed", "say removed");
+            config.crons.add(kept);
+            config.crons.add(edited);
+            config.crons.add(removed);
+            assertEquals(3, simulation.load(config).added);
+            simulation.advance(5_500L);
+
+            edited.command = "say edited again";
+            config.crons.remove(removed);
+            config.crons.add(entry("added", "say added"));
+            QuartzManager.ReloadResult result = simulation.load(config);
+            assertEquals(1, result.added);
+            assertEquals(1, result.updated);
+            assertEquals(1, result.removed);
+            assertEquals(1, result.unchanged);
+            assertEquals(3, result.scheduled);
+            assertFalse(simulation.manager.isCronScheduled("removed"));
+
+            simulation.advance(5_000L);
+            assertEquals(10L, simulation.executor.runs("say kept"));
+            assertEquals(5L, simulation.executor.runs("say edited"));
+            assertEquals(5L, simulation.executor.runs("say edited again"));
+            assertEquals(5L, simulation.executor.runs("say removed"));
+            assertEquals(5L, simulation.executor.runs("say added"));
+        }
+    }
+
+    @Test
+    void failingCommandOpensItsBreaker() {
+        ScheduleSimulator.Settings settings = new ScheduleSimulator.Settings();
+        settings.failing.add("fail");
+        try (ScheduleSimulator.Simulation simulation = new ScheduleSimulator.Simulation(settings)) {
+            QuartzConfig config = new QuartzConfig();
+            config.breaker.failureThreshold = 3;
+            config.breaker.initialBackoffSeconds = 60;
+            config.crons.add(entry("broken", "fail now"));
+            config.crons.add(entry("healthy", "say ok"));
+            simulation.load(config);
+
+            simulation.advance(10_500L);
+            CircuitBreaker breaker = simulation.manager.getBreaker();
+            assertEquals(CircuitBreaker.State.OPEN, breaker.getState("broken"));
+            assertEquals(3L, simulation.executor.runs("fail now")); // Later fires are dropped while it is open
+            assertEquals(10L, simulation.executor.runs("say ok"));
+            assertEquals(CircuitBreaker.State.CLOSED, breaker.getState("healthy"));
+        }
+    }
+
+    private static QuartzConfig.CronEntry entry(String id, String command) {
+        QuartzConfig.CronEntry entry = new QuartzConfig.CronEntry();
+        entry.id = id;
+        entry.schedule = EVERY_SECOND;
+        entry.command = command;
+        return entry;
+    }
+}